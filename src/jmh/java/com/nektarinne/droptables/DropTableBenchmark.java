@@ -0,0 +1,86 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A common table linking to a rare exclusive table, itself linking to a very rare one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DropTableBenchmark {
+
+    private DropTable dropTable;
+    private DropAccumulator accumulator;
+
+    private static Item item(String name) {
+        return Item.builder()
+                .name(name)
+                .category(Item.Category.EQUIPMENT)
+                .build();
+    }
+
+    @Setup
+    public void setup() {
+        DropTable veryRare = new DropTable(
+                Map.of(item("dragonScale"), 0.5, item("phoenixFeather"), 0.5),
+                Map.of(),
+                DropTable.Mode.EXCLUSIVE);
+        DropTable rare = new DropTable(
+                Map.of(item("ruby"), 0.3, item("sapphire"), 0.3, item("emerald"), 0.2, item("diamond"), 0.1),
+                Map.of(veryRare, 0.05),
+                DropTable.Mode.EXCLUSIVE);
+        dropTable = new DropTable(
+                Map.of(item("bone"), 0.9, item("rottenFlesh"), 0.75, item("arrow"), 0.5,
+                        item("string"), 0.4, item("ironNugget"), 0.1),
+                Map.of(rare, 0.02));
+        accumulator = new DropAccumulator(0);
+    }
+
+    @Benchmark
+    public Map<Item, Integer> drop() {
+        return dropTable.drop();
+    }
+
+    @Benchmark
+    public DropAccumulator drop_accumulator() {
+        accumulator.clear();
+        dropTable.drop(accumulator);
+        return accumulator;
+    }
+
+    @Benchmark
+    public Map<Item, Long> drop_times(Times times) {
+        return dropTable.drop(times.value);
+    }
+
+    @Benchmark
+    public DropAccumulator drop_timesAccumulator(Times times) {
+        accumulator.clear();
+        dropTable.drop(times.value, accumulator);
+        return accumulator;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Times {
+        @Param({"1000", "1000000"})
+        private long value;
+    }
+}
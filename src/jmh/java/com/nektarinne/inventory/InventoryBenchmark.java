@@ -0,0 +1,104 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    private static final int NB_OF_ITEMS = 20;
+
+    @Param({"27", "270"})
+    private int nbOfSlots;
+    @Param({"OBJECTS", "COMPACT"})
+    private Inventory.Storage storage;
+    private final List<Item> items = new ArrayList<>();
+    private Inventory sparse;
+    private Inventory full;
+    private ItemStack stack;
+    /**
+     * A boss drop: a few stacks of a few items.
+     */
+    private final List<ItemStack> loot = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < NB_OF_ITEMS; i++) {
+            items.add(Item.builder()
+                    .name("item" + i)
+                    .category(i % 2 == 0 ? Item.Category.EQUIPMENT : Item.Category.CONSUMABLE)
+                    .build());
+        }
+        Item added = items.get(0);
+        stack = ItemStack.builder(added).quantity(1).build();
+        for (int i = 0; i < 20; i++) {
+            loot.add(ItemStack.builder(items.get(i % 5)).quantity(1 + i).build());
+        }
+
+        // a few stacks of other items at the end: the added stack goes to the first slot
+        sparse = inventory();
+        for (int i = nbOfSlots - 4; i < nbOfSlots; i++) {
+            sparse.add(i, ItemStack.builder(items.get(1 + i % (NB_OF_ITEMS - 1))).quantity(10).build());
+        }
+
+        // only full stacks, some of them of the added item: nothing fits
+        full = inventory();
+        for (int i = 0; i < nbOfSlots; i++) {
+            Item item = items.get(i % NB_OF_ITEMS);
+            full.add(i, ItemStack.builder(item).quantity(item.stackSize()).build());
+        }
+    }
+
+    private Inventory inventory() {
+        return Inventory.builder()
+                .withNbOfSlots(nbOfSlots)
+                .withStorage(storage)
+                .build();
+    }
+
+    /**
+     * Adds to the first empty slot, then empties it again.
+     */
+    @Benchmark
+    public ItemStack add_sparse() {
+        sparse.add(stack);
+        return sparse.remove(0);
+    }
+
+    @Benchmark
+    public ItemStack add_full() {
+        return full.add(stack);
+    }
+
+    /**
+     * Same as {@link #add_full()}, through the primitive path: no leftover stack is allocated.
+     */
+    @Benchmark
+    public int add_fullQuantity() {
+        return full.add(stack.item(), stack.quantity());
+    }
+
+    @Benchmark
+    public boolean canFit_loot() {
+        return sparse.canFit(loot);
+    }
+}
@@ -0,0 +1,107 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventorySortBenchmark {
+
+    private static final int NB_OF_ITEMS = 20;
+
+    @Param({"27", "270"})
+    private int nbOfSlots;
+    @Param({"OBJECTS", "COMPACT"})
+    private Inventory.Storage storage;
+    /**
+     * A quarter of empty slots, and random stacks of random items elsewhere.
+     */
+    private final List<ItemStack> unsorted = new ArrayList<>();
+    private Inventory inventory;
+    /**
+     * Sorted once: the usual state of an inventory whose player spams the sort button.
+     */
+    private Inventory sorted;
+    private ItemStack first;
+
+    @Setup
+    public void setup() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < NB_OF_ITEMS; i++) {
+            items.add(Item.builder()
+                    .name("item" + i)
+                    .category(i % 2 == 0 ? Item.Category.EQUIPMENT : Item.Category.CONSUMABLE)
+                    .build());
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < nbOfSlots; i++) {
+            Item item = items.get(random.nextInt(NB_OF_ITEMS));
+            unsorted.add(random.nextInt(4) == 0
+                    ? null
+                    : ItemStack.builder(item).quantity(1 + random.nextInt(item.stackSize())).build());
+        }
+        fill();
+        sorted = inventory;
+        sorted.sort();
+        first = ItemStack.from(sorted.getItemStack(0));
+    }
+
+    /**
+     * Sorting an inventory sorts it for good: start again from the same unsorted one before each call.
+     */
+    @Setup(Level.Invocation)
+    public void fill() {
+        inventory = Inventory.builder()
+                .withNbOfSlots(nbOfSlots)
+                .withStorage(storage)
+                .build();
+        for (int i = 0; i < nbOfSlots; i++) {
+            if (unsorted.get(i) != null) {
+                inventory.add(i, unsorted.get(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public Inventory sort() {
+        inventory.sort();
+        return inventory;
+    }
+
+    @Benchmark
+    public Inventory sort_alreadySorted() {
+        sorted.sort();
+        return sorted;
+    }
+
+    /**
+     * Takes the first stack out and puts it back, then sorts again.
+     */
+    @Benchmark
+    public Inventory sort_oneChange() {
+        sorted.remove(0);
+        sorted.add(0, first);
+        sorted.sort();
+        return sorted;
+    }
+}
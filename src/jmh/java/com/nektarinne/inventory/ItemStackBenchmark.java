@@ -0,0 +1,59 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemStackBenchmark {
+
+    private ItemStack target;
+    private ItemStack one;
+    private ItemStack overflowing;
+
+    @Setup
+    public void setup() {
+        Item item = Item.builder()
+                .name("oakLog")
+                .category(Item.Category.EQUIPMENT)
+                .build();
+        target = ItemStack.builder(item).quantity(1).build();
+        one = ItemStack.builder(item).quantity(1).build();
+        overflowing = ItemStack.builder(item).quantity(item.stackSize()).build();
+    }
+
+    /**
+     * Fully absorbed. The target is put back to 1 so that it never fills up.
+     */
+    @Benchmark
+    public ItemStack add_absorbed() {
+        ItemStack result = target.add(one);
+        target.quantity(1);
+        return result;
+    }
+
+    /**
+     * Partially absorbed: the rest is returned as a new stack.
+     */
+    @Benchmark
+    public ItemStack add_overflowing() {
+        ItemStack result = target.add(overflowing);
+        target.quantity(1);
+        return result;
+    }
+}
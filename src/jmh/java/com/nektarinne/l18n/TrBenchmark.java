@@ -0,0 +1,53 @@
+package com.nektarinne.l18n;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrBenchmark {
+
+    private Tr tr;
+    private final StringBuilder builder = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        tr = new Tr();
+    }
+
+    @Benchmark
+    public String tr() {
+        return tr.tr("TEST");
+    }
+
+    @Benchmark
+    public String tr_withArguments() {
+        return tr.tr("TEST_S_VAR_D", "expected", 42);
+    }
+
+    @Benchmark
+    public StringBuilder tr_withArgumentsIntoBuilder() {
+        builder.setLength(0);
+        tr.tr(builder, "TEST_S_VAR_D", "expected", 42);
+        return builder;
+    }
+
+    @Benchmark
+    public String tr_missingKey() {
+        return tr.tr("MISSING_KEY");
+    }
+}
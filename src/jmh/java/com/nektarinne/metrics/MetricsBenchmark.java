@@ -0,0 +1,66 @@
+package com.nektarinne.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of an update of each kind of metric, to compare with the cost of the operations they instrument.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enabled;
+    private Counter counter;
+    private ConcurrentHistogram histogram;
+    private ConcurrentHistogram timer;
+
+    @Setup
+    public void setup() {
+        Metrics metrics = new Metrics();
+        if (enabled) {
+            metrics.enable(Subsystem.INVENTORY);
+        }
+        counter = metrics.counter(Subsystem.INVENTORY, "counter");
+        histogram = metrics.histogram(Subsystem.INVENTORY, "histogram");
+        timer = metrics.timer(Subsystem.INVENTORY, "timer");
+    }
+
+    @Benchmark
+    public void counter() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counter_contended() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void histogram() {
+        histogram.record(42);
+    }
+
+    @Benchmark
+    public void timer() {
+        timer.stopTimer(timer.startTimer());
+    }
+}
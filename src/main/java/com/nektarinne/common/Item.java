@@ -5,11 +5,15 @@ import java.util.Objects;
 
 /**
  * Represents an Item.
+ * <p>
+ * Items are interned by {@link ItemRegistry}: two items with the same name, category and stack size are the same
+ * instance, so equality is identity and {@link #id()} can be used as an array index.
  */
 public class Item implements Comparable<Item> {
 
     static final int DEFAULT_STACK_SIZE = 64;
     private static final Comparator<Item> COMPARATOR = Comparator.comparing(Item::category).thenComparing(Item::name);
+    private final int id;
     private final String name;
     private final Category category;
     /**
@@ -17,7 +21,8 @@ public class Item implements Comparable<Item> {
      */
     private final int stackSize;
 
-    private Item(Builder builder) {
+    Item(Builder builder, int id) {
+        this.id = id;
         this.name = Objects.requireNonNull(builder.name, "Unable to create an item using " + builder + ": the name cannot be null");
         this.category = Objects.requireNonNull(builder.category, "Unable to create an item using " + builder + ": the category cannot be null");
         this.stackSize = builder.stackSize;
@@ -28,7 +33,17 @@ public class Item implements Comparable<Item> {
     }
 
     public static int compare(Item o1, Item o2) {
-        return o1 == null ? 1 : o1.compareTo(o2);
+        if (o1 == null) {
+            return o2 == null ? 0 : 1;
+        }
+        return o1.compareTo(o2);
+    }
+
+    /**
+     * @return the dense id given by {@link ItemRegistry}.
+     */
+    public int id() {
+        return id;
     }
 
     public String name() {
@@ -45,15 +60,13 @@ public class Item implements Comparable<Item> {
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Item item = (Item) o;
-        return stackSize == item.stackSize && Objects.equals(name, item.name) && category == item.category;
+        // interned
+        return this == o;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, category, stackSize);
+        return id;
     }
 
     @Override
@@ -66,8 +79,8 @@ public class Item implements Comparable<Item> {
 
     @Override
     public String toString() {
-        return "%s{name='%s', category=%s, stackSize=%d}"
-                .formatted(getClass().getSimpleName(), name, category, stackSize);
+        return "%s{id=%d, name='%s', category=%s, stackSize=%d}"
+                .formatted(getClass().getSimpleName(), id, name, category, stackSize);
     }
 
     public enum Category {
@@ -96,8 +109,23 @@ public class Item implements Comparable<Item> {
             return this;
         }
 
+        String name() {
+            return name;
+        }
+
+        Category category() {
+            return category;
+        }
+
+        int stackSize() {
+            return stackSize;
+        }
+
+        /**
+         * @return the interned item, created on first use.
+         */
         public Item build() {
-            return new Item(this);
+            return ItemRegistry.global().intern(this);
         }
 
         @Override
@@ -0,0 +1,130 @@
+package com.nektarinne.common;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the {@link Item items} built by {@link Item.Builder}: building the same item twice yields the same instance.
+ * <p>
+ * Every interned item gets a dense id, starting at 0 and in creation order, so ids can be used as array indexes. Ids
+ * are only stable within a run of the game: persist item definitions, not ids.
+ */
+public final class ItemRegistry {
+
+    private static final ItemRegistry GLOBAL = new ItemRegistry();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentMap<Key, Item> items = new ConcurrentHashMap<>();
+    /**
+     * Copied on growth and published through a volatile write, so {@link #get(int)} does not need to lock.
+     */
+    private volatile Item[] byId = new Item[INITIAL_CAPACITY];
+    private volatile int size;
+    /**
+     * Lazily rebuilt by {@link #sortRank(int)} when items have been interned since.
+     */
+    private volatile int[] sortRanks = new int[0];
+
+    private ItemRegistry() {
+    }
+
+    /**
+     * @return the registry used by {@link Item.Builder#build()}.
+     */
+    public static ItemRegistry global() {
+        return GLOBAL;
+    }
+
+    Item intern(Item.Builder builder) {
+        Key key = new Key(builder.name(), builder.category(), builder.stackSize());
+        Item result = items.get(key);
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            result = items.get(key);
+            if (result == null) {
+                result = new Item(builder, size);
+                Item[] array = byId;
+                if (result.id() == array.length) {
+                    array = Arrays.copyOf(array, array.length * 2);
+                }
+                array[result.id()] = result;
+                byId = array;
+                size = result.id() + 1;
+                items.put(key, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Looks an item up without interning it, for definitions coming from outside the game (saved or received data).
+     *
+     * @return the item of the given definition, or null if it has not been built.
+     */
+    public Item find(String name, Item.Category category, int stackSize) {
+        return items.get(new Key(name, category, stackSize));
+    }
+
+    /**
+     * @return the item of the given id.
+     */
+    public Item get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Item id '%d' is outside [0, %d]".formatted(id, size - 1));
+        }
+        return byId[id];
+    }
+
+    /**
+     * Ranks follow the natural order of items, so they can be compared instead of the items. Items comparing equal
+     * share their rank. Ranks may change when items are interned, but the order of two ranks never does.
+     *
+     * @return the position of the item of the given id among every interned item, sorted.
+     */
+    public int sortRank(int id) {
+        int[] ranks = sortRanks;
+        if (id < 0 || id >= ranks.length) {
+            get(id);
+            ranks = computeSortRanks();
+        }
+        return ranks[id];
+    }
+
+    private synchronized int[] computeSortRanks() {
+        int count = size;
+        if (sortRanks.length == count) {
+            return sortRanks;
+        }
+        Item[] sorted = Arrays.copyOf(byId, count);
+        Arrays.sort(sorted);
+        int[] ranks = new int[count];
+        int rank = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && sorted[i].compareTo(sorted[i - 1]) != 0) {
+                rank = i;
+            }
+            ranks[sorted[i].id()] = rank;
+        }
+        sortRanks = ranks;
+        return ranks;
+    }
+
+    /**
+     * @return the number of interned items, which is also the highest id + 1.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{size=%d}"
+                .formatted(getClass().getSimpleName(), size);
+    }
+
+    private record Key(String name, Item.Category category, int stackSize) {
+    }
+}
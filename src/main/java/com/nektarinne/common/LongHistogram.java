@@ -0,0 +1,194 @@
+package com.nektarinne.common;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative long values with a bounded relative error, in the spirit of HdrHistogram.
+ * <p>
+ * Values below {@value #SUB_BUCKET_COUNT} get a bucket of their own. Above, every power of 2 is split into
+ * {@value #SUB_BUCKET_COUNT} / 2 buckets of equal width, so a value is known within 1 / {@value #SUB_BUCKET_COUNT} of
+ * itself (about 3%). Buckets are created up to the highest recorded value only: a histogram of small values stays small.
+ * <p>
+ * Histograms can be {@link #add(LongHistogram) merged}. Not thread-safe.
+ */
+public final class LongHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private double sum;
+
+    public LongHistogram() {
+    }
+
+    private LongHistogram(LongHistogram other) {
+        this.counts = other.counts.clone();
+        this.totalCount = other.totalCount;
+        this.min = other.min;
+        this.max = other.max;
+        this.sum = other.sum;
+    }
+
+    public static LongHistogram from(LongHistogram other) {
+        return new LongHistogram(other);
+    }
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    public void record(long value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Unable to record a negative value: %d".formatted(value));
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count '%d' is invalid".formatted(count));
+        }
+        if (count == 0) {
+            return;
+        }
+        int index = bucketIndex(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + counts.length / 2));
+        }
+        counts[index] += count;
+        totalCount += count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += (double) value * count;
+    }
+
+    /**
+     * Adds the values recorded by {@code other} to this histogram.
+     */
+    public void add(LongHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    public long count() {
+        return totalCount;
+    }
+
+    /**
+     * @return the lowest recorded value, or 0 if none has been.
+     */
+    public long min() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the highest recorded value, or 0 if none has been.
+     */
+    public long max() {
+        return totalCount == 0 ? 0 : max;
+    }
+
+    /**
+     * @return the exact mean of the recorded values, or 0 if none has been.
+     */
+    public double mean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * @param percentile in [0, 100].
+     * @return the highest value of the bucket holding the given percentile, so that at least {@code percentile}% of
+     * the recorded values are lower or equal. 0 if no value has been recorded.
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile '%s' is outside [0, 100]".formatted(percentile));
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, Math.max(min, highestValue(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Calls {@code action} for every non-empty bucket, by increasing values.
+     */
+    public void forEach(BucketConsumer action) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                action.accept(lowestValue(i), highestValue(i), counts[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        sum = 0;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        // value >> shift is in [HALF_SUB_BUCKET_COUNT, SUB_BUCKET_COUNT[
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (int) (value >> shift) - HALF_SUB_BUCKET_COUNT;
+    }
+
+    private static long lowestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return subBucket << shift;
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long highest = lowestValue(index) + (1L << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{count=%d, min=%d, max=%d, mean=%f}"
+                .formatted(getClass().getSimpleName(), totalCount, min(), max(), mean());
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+        /**
+         * @param from  the lowest value of the bucket.
+         * @param to    the highest value of the bucket, inclusive.
+         * @param count the number of recorded values in [from, to].
+         */
+        void accept(long from, long to, long count);
+    }
+}
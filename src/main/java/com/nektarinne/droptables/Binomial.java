@@ -0,0 +1,155 @@
+package com.nektarinne.droptables;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Exact binomial sampling in a time that does not depend on the number of trials.
+ * <p>
+ * Small means ({@code n * min(p, 1 - p) < 30}) are sampled by inversion, bounded by the mean. Larger ones use the BTPE
+ * algorithm of Kachitvichyanukul and Schmeiser (1988), as found in most numerical libraries.
+ */
+final class Binomial {
+
+    private static final double INVERSION_THRESHOLD = 30;
+
+    private Binomial() {
+    }
+
+    /**
+     * @return the number of successes among {@code n} trials of probability {@code p}.
+     */
+    static long sample(RandomGenerator random, long n, double p) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Number of trials '%d' is negative".formatted(n));
+        }
+        if (n == 0 || p <= 0) {
+            return 0;
+        }
+        if (p >= 1) {
+            return n;
+        }
+        double r = Math.min(p, 1 - p);
+        long result = n * r < INVERSION_THRESHOLD ? inversion(random, n, r) : btpe(random, n, r);
+        return p > 0.5 ? n - result : result;
+    }
+
+    private static long inversion(RandomGenerator random, long n, double p) {
+        double q = 1 - p;
+        double qn = Math.exp(n * Math.log1p(-p));
+        double np = n * p;
+        double bound = Math.min(n, np + 10 * Math.sqrt(np * q + 1));
+        long x = 0;
+        double px = qn;
+        double u = random.nextDouble();
+        while (u > px) {
+            x++;
+            if (x > bound) {
+                x = 0;
+                px = qn;
+                u = random.nextDouble();
+            } else {
+                u -= px;
+                px = ((n - x + 1) * p * px) / (x * q);
+            }
+        }
+        return x;
+    }
+
+    private static long btpe(RandomGenerator random, long n, double p) {
+        double q = 1 - p;
+        double nrq = n * p * q;
+        double fm = n * p + p;
+        double m = Math.floor(fm);
+        double p1 = Math.floor(2.195 * Math.sqrt(nrq) - 4.6 * q) + 0.5;
+        double xm = m + 0.5;
+        double xl = xm - p1;
+        double xr = xm + p1;
+        double c = 0.134 + 20.5 / (15.3 + m);
+        double a = (fm - xl) / (fm - xl * p);
+        double laml = a * (1 + a / 2);
+        a = (xr - fm) / (xr * q);
+        double lamr = a * (1 + a / 2);
+        double p2 = p1 * (1 + 2 * c);
+        double p3 = p2 + c / laml;
+        double p4 = p3 + c / lamr;
+        while (true) {
+            double u = random.nextDouble() * p4;
+            double v = random.nextDouble();
+            double y;
+            if (u <= p1) {
+                // triangular region: always accepted
+                return (long) Math.floor(xm - p1 * v + u);
+            }
+            if (u <= p2) {
+                // parallelograms
+                double x = xl + (u - p1) / c;
+                v = v * c + 1 - Math.abs(m - x + 0.5) / p1;
+                if (v > 1) {
+                    continue;
+                }
+                y = Math.floor(x);
+            } else if (u <= p3) {
+                // left exponential tail
+                y = Math.floor(xl + Math.log(v) / laml);
+                if (y < 0) {
+                    continue;
+                }
+                v = v * (u - p2) * laml;
+            } else {
+                // right exponential tail
+                y = Math.floor(xr - Math.log(v) / lamr);
+                if (y > n) {
+                    continue;
+                }
+                v = v * (u - p3) * lamr;
+            }
+            if (accept(n, p, q, nrq, m, xm, y, v)) {
+                return (long) y;
+            }
+        }
+    }
+
+    private static boolean accept(long n, double p, double q, double nrq, double m, double xm, double y, double v) {
+        double k = Math.abs(y - m);
+        if (k <= 20 || k >= nrq / 2 - 1) {
+            // explicit evaluation of f(y) / f(m)
+            double s = p / q;
+            double a = s * (n + 1);
+            double f = 1;
+            if (m < y) {
+                for (double i = m + 1; i <= y; i++) {
+                    f *= (a / i - s);
+                }
+            } else if (m > y) {
+                for (double i = y + 1; i <= m; i++) {
+                    f /= (a / i - s);
+                }
+            }
+            return v <= f;
+        }
+        // squeeze using upper and lower bounds on log(f(y))
+        double rho = (k / nrq) * ((k * (k / 3 + 0.625) + 0.16666666666666666) / nrq + 0.5);
+        double t = -k * k / (2 * nrq);
+        double logV = Math.log(v);
+        if (logV < t - rho) {
+            return true;
+        }
+        if (logV > t + rho) {
+            return false;
+        }
+        // final acceptance test using Stirling's formula
+        double x1 = y + 1;
+        double f1 = m + 1;
+        double z = n + 1 - m;
+        double w = n - y + 1;
+        return logV <= xm * Math.log(f1 / x1)
+                + (n - m + 0.5) * Math.log(z / w)
+                + (y - m) * Math.log(w * p / (x1 * q))
+                + stirlingCorrection(f1) + stirlingCorrection(z) + stirlingCorrection(x1) + stirlingCorrection(w);
+    }
+
+    private static double stirlingCorrection(double x) {
+        double x2 = x * x;
+        return (13680. - (462. - (132. - (99. - 140. / x2) / x2) / x2) / x2) / x / 166320.;
+    }
+}
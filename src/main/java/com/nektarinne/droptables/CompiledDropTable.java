@@ -0,0 +1,523 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.metrics.ConcurrentHistogram;
+import com.nektarinne.metrics.Counter;
+import com.nektarinne.metrics.Metrics;
+import com.nektarinne.metrics.Subsystem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Flat, immutable form of a {@link DropTable} and of every table it links to.
+ * <p>
+ * The table graph is laid out in pre-order: every node (a table or an item) is followed by its children, and
+ * {@code ends[node]} is the index right after its subtree. A failed roll skips the whole subtree in one jump, so a
+ * drop is a single walk over primitive arrays. {@link DropTable.Mode#EXCLUSIVE} tables pick their outcome in constant
+ * time through a precomputed alias table (Vose's alias method).
+ * <p>
+ * Bulk drops walk the same nodes once, drawing how many of the {@code times} rolls reach each node from a binomial
+ * distribution (a multinomial one among the outcomes of an exclusive table), so their cost does not depend on
+ * {@code times}.
+ * <p>
+ * Compiling and both walks are iterative, whatever the depth of the graph. The graph is also simplified while
+ * compiled, with the conditional probabilities precomputed:
+ * <ul>
+ * <li>a table with a single outcome is replaced by that outcome, at the product of both probabilities, so a chain of
+ * rare tables costs a single roll;</li>
+ * <li>an independent table linked for sure by an independent table is merged into it;</li>
+ * <li>an exclusive table linked by an exclusive table is merged into it, each of its outcomes weighted by the chance to
+ * pick the linked table, so nested exclusive tables cost a single pick.</li>
+ * </ul>
+ * <p>
+ * Items are stored by {@link Item#id() id}, which {@link DropAccumulator} uses to count drops without allocating.
+ */
+public final class CompiledDropTable {
+
+    static final double EPSILON = 1e-9;
+    private static final int NOTHING = -1;
+    /**
+     * Drops rolled by the bulk drops, exactly. Single drops are not counted, so that an untimed one updates no metric:
+     * the report of {@link #DROP_NANOS} estimates their number.
+     */
+    private static final Counter BULK_DROPS = Metrics.global().counter(Subsystem.DROP_TABLES, "bulkDrops");
+    private static final ConcurrentHistogram DROP_NANOS = Metrics.global().timer(Subsystem.DROP_TABLES, "drop.nanos");
+    private static final ConcurrentHistogram BULK_DROP_NANOS = Metrics.global().timer(Subsystem.DROP_TABLES, "bulkDrop.nanos");
+    /**
+     * Working memory of the drops returning a map, shared by the tables of a thread: its arrays are indexed by item id,
+     * so allocating them for each drop would cost more than the drop.
+     */
+    private static final ThreadLocal<DropAccumulator> ACCUMULATORS =
+            ThreadLocal.withInitial(() -> new DropAccumulator(0));
+
+    /**
+     * Ids of the items this table can yield, sorted.
+     */
+    private final int[] distinctItemIds;
+    private final int maxItemId;
+    private final double[] probabilities;
+    /**
+     * Chance for a child of an exclusive table to be the picked outcome, 0 for the other nodes.
+     */
+    private final double[] weights;
+    private final int[] itemIds;
+    private final int[] ends;
+    private final int[] parents;
+    /**
+     * For the children of an exclusive table: where to go once the child picked has been rolled, i.e. the end of the
+     * table. {@link #NOTHING} for the other nodes.
+     */
+    private final int[] exclusiveEnds;
+    private final int[] aliasOffsets;
+    private final int[] aliasSizes;
+    private final double[] aliasThresholds;
+    private final int[] aliasOutcomes;
+    private final int[] aliasAlternatives;
+
+    private CompiledDropTable(Compiler compiler) {
+        int size = compiler.nodes.size();
+        this.distinctItemIds = compiler.itemIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.maxItemId = distinctItemIds.length == 0 ? NOTHING : distinctItemIds[distinctItemIds.length - 1];
+        this.probabilities = new double[size];
+        this.weights = new double[size];
+        this.itemIds = new int[size];
+        this.ends = new int[size];
+        this.parents = new int[size];
+        this.exclusiveEnds = new int[size];
+        this.aliasOffsets = new int[size];
+        this.aliasSizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            Node node = compiler.nodes.get(i);
+            probabilities[i] = node.probability;
+            weights[i] = node.weight;
+            itemIds[i] = node.itemId;
+            ends[i] = node.end;
+            parents[i] = node.parent;
+            aliasOffsets[i] = node.aliasOffset;
+            aliasSizes[i] = node.aliasSize;
+        }
+        for (int i = 0; i < size; i++) {
+            exclusiveEnds[i] = weights[i] > 0 ? ends[parents[i]] : NOTHING;
+        }
+        int aliasSize = compiler.aliasThresholds.size();
+        this.aliasThresholds = new double[aliasSize];
+        this.aliasOutcomes = new int[aliasSize];
+        this.aliasAlternatives = new int[aliasSize];
+        for (int i = 0; i < aliasSize; i++) {
+            aliasThresholds[i] = compiler.aliasThresholds.get(i);
+            aliasOutcomes[i] = compiler.aliasOutcomes.get(i);
+            aliasAlternatives[i] = compiler.aliasAlternatives.get(i);
+        }
+    }
+
+    static CompiledDropTable compile(DropTable dropTable) {
+        Compiler compiler = new Compiler();
+        compiler.emitTable(Objects.requireNonNull(dropTable));
+        return new CompiledDropTable(compiler);
+    }
+
+    /**
+     * @return the ids of the items this table can yield, sorted.
+     */
+    int[] distinctItemIds() {
+        return distinctItemIds.clone();
+    }
+
+    public Map<Item, Integer> drop(RandomGenerator random) {
+        DropAccumulator accumulator = ACCUMULATORS.get();
+        try {
+            drop(random, accumulator);
+            Map<Item, Integer> result = new HashMap<>();
+            accumulator.forEach((item, quantity) -> result.put(item, Math.toIntExact(quantity)));
+            return result;
+        } finally {
+            accumulator.clear();
+        }
+    }
+
+    /**
+     * Drops once, adding the yielded items to {@code accumulator}. Allocates nothing.
+     */
+    public void drop(RandomGenerator random, DropAccumulator accumulator) {
+        checkAccumulator(accumulator);
+        long start = DROP_NANOS.startTimer();
+        roll(random, accumulator);
+        DROP_NANOS.stopTimer(start);
+    }
+
+    /**
+     * Drops {@code times} times at once.
+     *
+     * @return the exact number of each item yielded by {@code times} independent drops.
+     */
+    public Map<Item, Long> drop(RandomGenerator random, long times) {
+        DropAccumulator accumulator = ACCUMULATORS.get();
+        try {
+            drop(random, times, accumulator);
+            return accumulator.toMap();
+        } finally {
+            accumulator.clear();
+        }
+    }
+
+    /**
+     * Drops {@code times} times at once, adding the yielded items to {@code accumulator}. Allocates nothing.
+     */
+    public void drop(RandomGenerator random, long times, DropAccumulator accumulator) {
+        if (times < 0) {
+            throw new IllegalArgumentException("Unable to drop a negative number of times: %d".formatted(times));
+        }
+        checkAccumulator(accumulator);
+        long start = BULK_DROP_NANOS.startTimer();
+        rollBulk(random, times, accumulator);
+        BULK_DROP_NANOS.stopTimer(start);
+        BULK_DROPS.add(times);
+    }
+
+    private DropAccumulator checkAccumulator(DropAccumulator accumulator) {
+        // grows once, before the walk, so that the walk itself never allocates
+        accumulator.ensureCapacity(maxItemId + 1);
+        return accumulator;
+    }
+
+    private void roll(RandomGenerator random, DropAccumulator accumulator) {
+        int node = 0;
+        boolean picked = false;
+        while (node < probabilities.length) {
+            if (!picked && exclusiveEnds[node] != NOTHING) {
+                // a child of an exclusive table that was not picked: the picked one has been rolled
+                node = exclusiveEnds[node];
+                continue;
+            }
+            picked = false;
+            double probability = probabilities[node];
+            if (probability < 1 && random.nextDouble() >= probability) {
+                node = ends[node];
+            } else if (itemIds[node] != NOTHING) {
+                accumulator.add(itemIds[node], 1);
+                node++;
+            } else if (aliasSizes[node] > 0) {
+                int outcome = pick(random, node);
+                if (outcome == NOTHING) {
+                    node = ends[node];
+                } else {
+                    node = outcome;
+                    picked = true;
+                }
+            } else {
+                // independent table: its children follow
+                node++;
+            }
+        }
+    }
+
+    /**
+     * Single pre-order walk: every node draws how many times it is reached from the number of times its parent was,
+     * or, for the children of an exclusive table, from the share its parent gave it.
+     */
+    private void rollBulk(RandomGenerator random, long times, DropAccumulator accumulator) {
+        long[] reached = accumulator.scratch(probabilities.length);
+        int node = 0;
+        while (node < probabilities.length) {
+            long parentReached;
+            if (exclusiveEnds[node] != NOTHING) {
+                parentReached = reached[node];
+            } else {
+                parentReached = node == 0 ? times : reached[parents[node]];
+            }
+            long nodeReached = Binomial.sample(random, parentReached, probabilities[node]);
+            if (nodeReached == 0) {
+                node = ends[node];
+                continue;
+            }
+            reached[node] = nodeReached;
+            if (itemIds[node] != NOTHING) {
+                accumulator.add(itemIds[node], nodeReached);
+            } else if (aliasSizes[node] > 0) {
+                // multinomial split through successive conditional binomials
+                long remaining = nodeReached;
+                double remainingWeight = 1;
+                for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                    long share = remaining == 0 ? 0
+                            : Binomial.sample(random, remaining, Math.min(1, weights[child] / remainingWeight));
+                    reached[child] = share;
+                    remaining -= share;
+                    remainingWeight -= weights[child];
+                }
+            }
+            node++;
+        }
+    }
+
+    private int pick(RandomGenerator random, int node) {
+        double u = random.nextDouble() * aliasSizes[node];
+        int column = (int) u;
+        int index = aliasOffsets[node] + column;
+        return u - column < aliasThresholds[index] ? aliasOutcomes[index] : aliasAlternatives[index];
+    }
+
+    @Override
+    public String toString() {
+        return "%s{items=%d, nodes=%d}"
+                .formatted(getClass().getSimpleName(), distinctItemIds.length, probabilities.length);
+    }
+
+    private static final class Node {
+        private final double probability;
+        private final int itemId;
+        private final int parent;
+        private double weight;
+        private int end;
+        private int aliasOffset;
+        private int aliasSize;
+
+        private Node(double probability, int itemId, int parent) {
+            this.probability = probability;
+            this.itemId = itemId;
+            this.parent = parent;
+        }
+    }
+
+    private interface Task {
+    }
+
+    /**
+     * Emits an outcome and its subtree. {@code siblings} collects the indexes of the children of an exclusive table,
+     * null for the other nodes.
+     */
+    private record Emit(Object outcome, double probability, int parent, double weight, List<Integer> siblings)
+            implements Task {
+    }
+
+    private record IndependentChildren(DropTable dropTable, int parent) implements Task {
+    }
+
+    /**
+     * Closes the subtree of a table once its children have been emitted.
+     */
+    private record Finish(int node, List<Integer> children, List<Double> weights) implements Task {
+    }
+
+    private static final class Compiler {
+        private final List<Node> nodes = new ArrayList<>();
+        private final Set<Integer> itemIds = new HashSet<>();
+        private final List<Double> aliasThresholds = new ArrayList<>();
+        private final List<Integer> aliasOutcomes = new ArrayList<>();
+        private final List<Integer> aliasAlternatives = new ArrayList<>();
+
+        /**
+         * Emits the table and everything it links to, in pre-order. Iterative: the work left is kept in an explicit
+         * stack, so that a long chain of tables cannot overflow the call stack.
+         */
+        private void emitTable(DropTable table) {
+            Deque<Task> tasks = new ArrayDeque<>();
+            tasks.push(new Emit(table, 1, NOTHING, 0, null));
+            while (!tasks.isEmpty()) {
+                Task task = tasks.pop();
+                if (task instanceof Emit emit) {
+                    emit(emit, tasks);
+                } else if (task instanceof IndependentChildren children) {
+                    pushIndependentChildren(children.dropTable(), children.parent(), tasks);
+                } else {
+                    finish((Finish) task);
+                }
+            }
+        }
+
+        private void emit(Emit emit, Deque<Task> tasks) {
+            Object outcome = emit.outcome();
+            double probability = emit.probability();
+            Map.Entry<Object, Double> single;
+            while (outcome instanceof DropTable linked && (single = singleOutcome(linked)) != null) {
+                outcome = single.getKey();
+                probability *= single.getValue();
+            }
+            int index = nodes.size();
+            if (outcome instanceof Item item) {
+                emitItem(item, probability, emit.parent());
+            } else {
+                nodes.add(new Node(probability, NOTHING, emit.parent()));
+            }
+            if (emit.siblings() != null) {
+                nodes.get(index).weight = emit.weight();
+                emit.siblings().add(index);
+            }
+            if (!(outcome instanceof DropTable dropTable)) {
+                return;
+            }
+            if (dropTable.mode() == DropTable.Mode.EXCLUSIVE) {
+                List<Object> outcomes = new ArrayList<>();
+                List<Double> weights = new ArrayList<>();
+                collectExclusiveOutcomes(dropTable, outcomes, weights);
+                Finish finish = new Finish(index, new ArrayList<>(), weights);
+                tasks.push(finish);
+                for (int i = outcomes.size() - 1; i >= 0; i--) {
+                    tasks.push(new Emit(outcomes.get(i), 1, index, weights.get(i), finish.children()));
+                }
+            } else {
+                tasks.push(new Finish(index, null, null));
+                tasks.push(new IndependentChildren(dropTable, index));
+            }
+        }
+
+        /**
+         * Children of an independent table, along with those of the independent tables it always rolls, pushed so
+         * that they are emitted in order.
+         */
+        private static void pushIndependentChildren(DropTable dropTable, int parent, Deque<Task> tasks) {
+            List<Task> children = new ArrayList<>();
+            dropTable.itemProbabilities().forEach((item, proba) -> {
+                if (proba > 0) {
+                    children.add(new Emit(item, proba, parent, 0, null));
+                }
+            });
+            dropTable.dropTableProbabilities().forEach((linked, proba) -> {
+                if (proba >= 1 && linked.mode() == DropTable.Mode.INDEPENDENT) {
+                    children.add(new IndependentChildren(linked, parent));
+                } else if (proba > 0) {
+                    children.add(new Emit(linked, proba, parent, 0, null));
+                }
+            });
+            for (int i = children.size() - 1; i >= 0; i--) {
+                tasks.push(children.get(i));
+            }
+        }
+
+        private void finish(Finish finish) {
+            Node node = nodes.get(finish.node());
+            if (finish.children() != null) {
+                List<Integer> children = finish.children();
+                List<Double> weights = finish.weights();
+                double remainder = 1 - weights.stream().mapToDouble(Double::doubleValue).sum();
+                if (remainder > EPSILON) {
+                    children.add(NOTHING);
+                    weights.add(remainder);
+                }
+                node.aliasOffset = aliasThresholds.size();
+                node.aliasSize = children.size();
+                emitAlias(children, weights);
+            }
+            node.end = nodes.size();
+        }
+
+        /**
+         * Outcomes of an exclusive table, with those of the exclusive tables it links to in place of these tables.
+         */
+        private static void collectExclusiveOutcomes(DropTable dropTable, List<Object> outcomes, List<Double> weights) {
+            // a linked exclusive table is expanded in place, before the outcomes following it
+            Deque<Map.Entry<Object, Double>> pending = new ArrayDeque<>();
+            pending.push(Map.entry(dropTable, -1.0));
+            while (!pending.isEmpty()) {
+                Map.Entry<Object, Double> entry = pending.pop();
+                if (entry.getValue() >= 0) {
+                    outcomes.add(entry.getKey());
+                    weights.add(entry.getValue());
+                    continue;
+                }
+                DropTable table = (DropTable) entry.getKey();
+                double weight = -entry.getValue();
+                table.itemProbabilities().forEach((item, proba) -> {
+                    if (proba > 0) {
+                        outcomes.add(item);
+                        weights.add(weight * proba);
+                    }
+                });
+                List<Map.Entry<Object, Double>> linkedEntries = new ArrayList<>();
+                table.dropTableProbabilities().forEach((linked, proba) -> {
+                    if (proba > 0 && linked.mode() == DropTable.Mode.EXCLUSIVE) {
+                        // negative: to be expanded
+                        linkedEntries.add(Map.entry(linked, -weight * proba));
+                    } else if (proba > 0) {
+                        linkedEntries.add(Map.entry(linked, weight * proba));
+                    }
+                });
+                for (int i = linkedEntries.size() - 1; i >= 0; i--) {
+                    pending.push(linkedEntries.get(i));
+                }
+            }
+        }
+
+        /**
+         * @return the only outcome of the table, whatever its mode, with its probability. Null if it has several, or
+         * none.
+         */
+        private static Map.Entry<Object, Double> singleOutcome(DropTable dropTable) {
+            Map.Entry<Object, Double> result = null;
+            for (Map.Entry<Item, Double> entry : dropTable.itemProbabilities().entrySet()) {
+                if (entry.getValue() > 0) {
+                    if (result != null) {
+                        return null;
+                    }
+                    result = Map.entry(entry.getKey(), entry.getValue());
+                }
+            }
+            for (Map.Entry<DropTable, Double> entry : dropTable.dropTableProbabilities().entrySet()) {
+                if (entry.getValue() > 0) {
+                    if (result != null) {
+                        return null;
+                    }
+                    result = Map.entry(entry.getKey(), entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        private int emitItem(Item item, double probability, int parent) {
+            itemIds.add(item.id());
+            int index = nodes.size();
+            Node node = new Node(probability, item.id(), parent);
+            node.end = index + 1;
+            nodes.add(node);
+            return index;
+        }
+
+        /**
+         * Vose's alias method: every column holds its own outcome up to a threshold, and the overflow of a larger
+         * outcome above it.
+         */
+        private void emitAlias(List<Integer> outcomes, List<Double> weights) {
+            int size = outcomes.size();
+            double total = weights.stream().mapToDouble(Double::doubleValue).sum();
+            double[] scaled = new double[size];
+            double[] thresholds = new double[size];
+            int[] alternatives = new int[size];
+            Deque<Integer> small = new ArrayDeque<>();
+            Deque<Integer> large = new ArrayDeque<>();
+            for (int i = 0; i < size; i++) {
+                scaled[i] = weights.get(i) * size / total;
+                (scaled[i] < 1 ? small : large).push(i);
+            }
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.pop();
+                int more = large.pop();
+                thresholds[less] = scaled[less];
+                alternatives[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1;
+                (scaled[more] < 1 ? small : large).push(more);
+            }
+            // whatever is left is only off by rounding errors
+            for (int i : small) {
+                thresholds[i] = 1;
+                alternatives[i] = i;
+            }
+            for (int i : large) {
+                thresholds[i] = 1;
+                alternatives[i] = i;
+            }
+            for (int i = 0; i < size; i++) {
+                aliasThresholds.add(thresholds[i]);
+                aliasOutcomes.add(outcomes.get(i));
+                aliasAlternatives.add(outcomes.get(alternatives[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.nektarinne.droptables;
+
+import java.util.List;
+
+public class CyclicDropTableException extends RuntimeException {
+
+    private CyclicDropTableException(String message) {
+        super(message);
+    }
+
+    private CyclicDropTableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public static CyclicDropTableException create(List<String> cycle) {
+        return new CyclicDropTableException("The drop tables link to each other in a cycle: %s"
+                .formatted(String.join(" -> ", cycle)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Reusable sink for the items yielded by a {@link DropTable}.
+ * <p>
+ * Counts are kept in a primitive array indexed by {@link Item#id()}, along with the list of the ids that have been
+ * touched. Dropping into an accumulator and then {@link #clear() clearing} it allocates nothing once the arrays have
+ * grown to the highest item id of the tables dropped into it, and both iterating and clearing only cost the number of
+ * distinct items dropped.
+ * <p>
+ * Drops add up until the accumulator is cleared. Not thread-safe: use one accumulator per thread.
+ */
+public final class DropAccumulator {
+
+    private long[] counts;
+    private int[] touched;
+    private int size;
+    /**
+     * Working memory of the bulk drops, kept here since an accumulator is not shared by threads.
+     */
+    private long[] scratch = new long[0];
+
+    /**
+     * @param capacity the highest expected item id + 1. The accumulator grows if needed, to the highest item id of the
+     *                 tables dropped into it.
+     */
+    public DropAccumulator(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity '%d' is invalid".formatted(capacity));
+        }
+        this.counts = new long[capacity];
+        this.touched = new int[capacity];
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > counts.length) {
+            counts = Arrays.copyOf(counts, capacity);
+            touched = Arrays.copyOf(touched, capacity);
+        }
+    }
+
+    /**
+     * @return an array of at least {@code size} longs, holding garbage.
+     */
+    long[] scratch(int size) {
+        if (scratch.length < size) {
+            scratch = new long[size];
+        }
+        return scratch;
+    }
+
+    void add(int itemId, long quantity) {
+        if (quantity == 0) {
+            return;
+        }
+        if (counts[itemId] == 0) {
+            touched[size++] = itemId;
+        }
+        counts[itemId] += quantity;
+    }
+
+    /**
+     * @return the number of distinct items dropped since the last {@link #clear()}.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[, in the order the items were first dropped.
+     */
+    public Item item(int position) {
+        return ItemRegistry.global().get(itemId(position));
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[, in the order the items were first dropped.
+     */
+    public int itemId(int position) {
+        return touched[checkPosition(position)];
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[, in the order the items were first dropped.
+     */
+    public long quantity(int position) {
+        return counts[touched[checkPosition(position)]];
+    }
+
+    public long get(Item item) {
+        return get(item.id());
+    }
+
+    public long get(int itemId) {
+        return itemId < counts.length ? counts[itemId] : 0;
+    }
+
+    public void forEach(ObjLongConsumer<Item> action) {
+        ItemRegistry registry = ItemRegistry.global();
+        for (int i = 0; i < size; i++) {
+            action.accept(registry.get(touched[i]), counts[touched[i]]);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            counts[touched[i]] = 0;
+        }
+        size = 0;
+    }
+
+    public Map<Item, Long> toMap() {
+        Map<Item, Long> result = new HashMap<>();
+        forEach(result::put);
+        return result;
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IllegalArgumentException("Position '%d' is outside [0, %d]".formatted(position, size - 1));
+        }
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{size=%d, capacity=%d}"
+                .formatted(getClass().getSimpleName(), size, counts.length);
+    }
+}
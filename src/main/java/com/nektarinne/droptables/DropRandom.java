@@ -0,0 +1,85 @@
+package com.nektarinne.droptables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Random generators for {@link DropTable}.
+ * <p>
+ * Every thread draws from its own generator, split from a shared root on first use: threads never contend on a
+ * generator, and a thread may install a seeded one with {@link #setCurrent(RandomGenerator)} to make its drops
+ * reproducible.
+ * <p>
+ * For parallel simulations, {@link #split(long, int)} gives one independent stream per worker from a master seed: the
+ * same seed and the same number of workers always give the same streams, whatever the scheduling.
+ */
+public final class DropRandom {
+
+    /**
+     * Splittable, and statistically independent streams once split.
+     */
+    public static final String ALGORITHM = "L64X128MixRandom";
+    private static final RandomGeneratorFactory<RandomGenerator> FACTORY = RandomGeneratorFactory.of(ALGORITHM);
+    /**
+     * Split under its own lock: splitting changes its state.
+     */
+    private static final SplittableGenerator ROOT = (SplittableGenerator) FACTORY.create();
+    private static final ThreadLocal<RandomGenerator> CURRENT = ThreadLocal.withInitial(DropRandom::splitRoot);
+
+    private DropRandom() {
+    }
+
+    /**
+     * @return a new generator, which always yields the same numbers for the same seed.
+     */
+    public static SplittableGenerator seeded(long seed) {
+        return (SplittableGenerator) FACTORY.create(seed);
+    }
+
+    /**
+     * @return {@code count} independent generators split from a generator seeded with {@code seed}.
+     */
+    public static List<SplittableGenerator> split(long seed, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count '%d' is invalid".formatted(count));
+        }
+        SplittableGenerator master = seeded(seed);
+        List<SplittableGenerator> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(master.split());
+        }
+        return result;
+    }
+
+    /**
+     * @return the generator of the current thread, used by the {@link DropTable} methods not given one.
+     */
+    public static RandomGenerator current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Replaces the generator of the current thread. Not shared with other threads, so it does not need to be
+     * thread-safe.
+     */
+    public static void setCurrent(RandomGenerator random) {
+        CURRENT.set(Objects.requireNonNull(random));
+    }
+
+    /**
+     * Goes back to a generator split from the shared root.
+     */
+    public static void resetCurrent() {
+        CURRENT.remove();
+    }
+
+    private static RandomGenerator splitRoot() {
+        synchronized (ROOT) {
+            return ROOT.split();
+        }
+    }
+}
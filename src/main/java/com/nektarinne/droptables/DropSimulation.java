@@ -0,0 +1,140 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+import com.nektarinne.common.LongHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of {@link DropSimulator#simulate(DropTable, long, long)}: per item, the distribution of the quantity yielded
+ * by a trial, and of the dry streaks, i.e. the number of trials in a row yielding none of it.
+ */
+public final class DropSimulation {
+
+    private final long trials;
+    private final List<ItemStatistics> statistics;
+
+    DropSimulation(long trials, int[] itemIds, long[] sums, long[] sumsOfSquares,
+                   LongHistogram[] quantities, LongHistogram[] dryStreaks) {
+        this.trials = trials;
+        List<ItemStatistics> list = new ArrayList<>(itemIds.length);
+        for (int i = 0; i < itemIds.length; i++) {
+            double mean = trials == 0 ? 0 : (double) sums[i] / trials;
+            double variance = trials == 0 ? 0 : Math.max(0, (double) sumsOfSquares[i] / trials - mean * mean);
+            list.add(new ItemStatistics(ItemRegistry.global().get(itemIds[i]), sums[i], mean, variance,
+                    quantities[i], dryStreaks[i]));
+        }
+        this.statistics = Collections.unmodifiableList(list);
+    }
+
+    public long trials() {
+        return trials;
+    }
+
+    /**
+     * @return the statistics of every item the table can yield, dropped or not.
+     */
+    public List<ItemStatistics> statistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the given item, or null if the table cannot yield it.
+     */
+    public ItemStatistics statistics(Item item) {
+        for (ItemStatistics itemStatistics : statistics) {
+            if (itemStatistics.item() == item) {
+                return itemStatistics;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{trials=%d, statistics=%s}"
+                .formatted(getClass().getSimpleName(), trials, statistics);
+    }
+
+    public static final class ItemStatistics {
+        private final Item item;
+        private final long total;
+        private final double mean;
+        private final double variance;
+        private final LongHistogram quantities;
+        private final LongHistogram dryStreaks;
+
+        private ItemStatistics(Item item, long total, double mean, double variance,
+                               LongHistogram quantities, LongHistogram dryStreaks) {
+            this.item = item;
+            this.total = total;
+            this.mean = mean;
+            this.variance = variance;
+            this.quantities = quantities;
+            this.dryStreaks = dryStreaks;
+        }
+
+        public Item item() {
+            return item;
+        }
+
+        /**
+         * @return the quantity yielded by every trial.
+         */
+        public long total() {
+            return total;
+        }
+
+        /**
+         * @return the mean quantity yielded by a trial.
+         */
+        public double mean() {
+            return mean;
+        }
+
+        /**
+         * @return the variance of the quantity yielded by a trial.
+         */
+        public double variance() {
+            return variance;
+        }
+
+        /**
+         * @return the quantity that {@code percentile}% of the trials yield at most.
+         */
+        public long quantityPercentile(double percentile) {
+            return quantities.percentile(percentile);
+        }
+
+        /**
+         * @return the length that {@code percentile}% of the dry streaks do not exceed: with 90, the number of trials
+         * 9 players out of 10 go through without the item before getting it.
+         */
+        public long dryStreakPercentile(double percentile) {
+            return dryStreaks.percentile(percentile);
+        }
+
+        /**
+         * @return a copy of the histogram of the quantity yielded by a trial.
+         */
+        public LongHistogram quantities() {
+            return LongHistogram.from(quantities);
+        }
+
+        /**
+         * @return a copy of the histogram of the dry streaks ended by a drop.
+         */
+        public LongHistogram dryStreaks() {
+            return LongHistogram.from(dryStreaks);
+        }
+
+        @Override
+        public String toString() {
+            return "%s{item=%s, total=%d, mean=%f, variance=%f, dryStreaks=%s}"
+                    .formatted(getClass().getSimpleName(), item, total, mean, variance, dryStreaks);
+        }
+    }
+}
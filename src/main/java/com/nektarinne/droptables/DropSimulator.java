@@ -0,0 +1,196 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.LongHistogram;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte Carlo simulation of a {@link DropTable}: drops it {@code trials} times, one trial at a time, and reports the
+ * distribution of what each trial yielded.
+ * <p>
+ * Trials are cut into chunks of {@value #CHUNK_SIZE}, simulated in parallel on a {@link ForkJoinPool}. Every chunk has
+ * its own generator, split from the seed (see {@link DropRandom#split(long, int)}), and its own
+ * {@link DropAccumulator}: chunks share nothing while they run, and the same seed gives the same result whatever the
+ * number of threads. Dry streaks crossing chunk boundaries are stitched together once every chunk is done.
+ */
+public final class DropSimulator {
+
+    static final int CHUNK_SIZE = 1 << 16;
+    private final ForkJoinPool pool;
+
+    public DropSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public DropSimulator(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public DropSimulation simulate(DropTable dropTable, long trials, long seed) {
+        Objects.requireNonNull(dropTable);
+        if (trials < 0) {
+            throw new IllegalArgumentException("Unable to simulate a negative number of trials: %d".formatted(trials));
+        }
+        CompiledDropTable compiled = dropTable.compile();
+        int[] itemIds = compiled.distinctItemIds();
+        int[] localIndexes = new int[itemIds.length == 0 ? 0 : itemIds[itemIds.length - 1] + 1];
+        for (int i = 0; i < itemIds.length; i++) {
+            localIndexes[itemIds[i]] = i;
+        }
+        int nbOfChunks = Math.toIntExact((trials + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        Simulation simulation = new Simulation(compiled, trials, itemIds, localIndexes, DropRandom.split(seed, nbOfChunks));
+        Partial result = nbOfChunks == 0 ? new Partial(itemIds.length) : pool.invoke(new ChunkTask(simulation, 0, nbOfChunks));
+        simulation.stitch(result);
+        return new DropSimulation(trials, itemIds, result.sums, result.sumsOfSquares, result.quantities, result.dryStreaks);
+    }
+
+    @Override
+    public String toString() {
+        return "%s{pool=%s}"
+                .formatted(getClass().getSimpleName(), pool);
+    }
+
+    /**
+     * What every chunk task shares: read-only inputs, and one row per chunk of the dry streaks cut by its boundaries,
+     * written by that chunk only.
+     */
+    private static final class Simulation {
+        private final CompiledDropTable compiled;
+        private final long trials;
+        private final int[] itemIds;
+        private final int[] localIndexes;
+        private final List<RandomGenerator.SplittableGenerator> randoms;
+        /**
+         * Trials before the first drop of each item in each chunk, -1 if the item did not drop in the chunk.
+         */
+        private final long[][] leading;
+        /**
+         * Trials after the last drop of each item in each chunk.
+         */
+        private final long[][] trailing;
+
+        private Simulation(CompiledDropTable compiled, long trials, int[] itemIds, int[] localIndexes,
+                           List<RandomGenerator.SplittableGenerator> randoms) {
+            this.compiled = compiled;
+            this.trials = trials;
+            this.itemIds = itemIds;
+            this.localIndexes = localIndexes;
+            this.randoms = randoms;
+            this.leading = new long[randoms.size()][];
+            this.trailing = new long[randoms.size()][];
+        }
+
+        private Partial simulate(int chunk) {
+            int nbOfItems = itemIds.length;
+            Partial result = new Partial(nbOfItems);
+            long[] lastDrops = new long[nbOfItems];
+            Arrays.fill(lastDrops, -1);
+            long[] firstDrops = new long[nbOfItems];
+            Arrays.fill(firstDrops, -1);
+            RandomGenerator random = randoms.get(chunk);
+            DropAccumulator accumulator = new DropAccumulator(localIndexes.length);
+            long size = Math.min(CHUNK_SIZE, trials - (long) chunk * CHUNK_SIZE);
+            for (long trial = 0; trial < size; trial++) {
+                accumulator.clear();
+                compiled.drop(random, accumulator);
+                for (int position = 0; position < accumulator.size(); position++) {
+                    int item = localIndexes[accumulator.itemId(position)];
+                    long quantity = accumulator.quantity(position);
+                    result.sums[item] += quantity;
+                    result.sumsOfSquares[item] += quantity * quantity;
+                    result.quantities[item].record(quantity);
+                    if (lastDrops[item] < 0) {
+                        firstDrops[item] = trial;
+                    } else {
+                        result.dryStreaks[item].record(trial - lastDrops[item] - 1);
+                    }
+                    lastDrops[item] = trial;
+                }
+            }
+            long[] trailingRow = new long[nbOfItems];
+            for (int item = 0; item < nbOfItems; item++) {
+                trailingRow[item] = lastDrops[item] < 0 ? size : size - lastDrops[item] - 1;
+            }
+            leading[chunk] = firstDrops;
+            trailing[chunk] = trailingRow;
+            return result;
+        }
+
+        /**
+         * Records the dry streaks spanning several chunks, and the trials that yielded nothing of each item. Streaks
+         * still running after the last trial are not recorded: how long they would have lasted is unknown.
+         */
+        private void stitch(Partial result) {
+            for (int item = 0; item < itemIds.length; item++) {
+                long running = 0;
+                for (int chunk = 0; chunk < randoms.size(); chunk++) {
+                    if (leading[chunk][item] < 0) {
+                        running += trailing[chunk][item];
+                    } else {
+                        result.dryStreaks[item].record(running + leading[chunk][item]);
+                        running = trailing[chunk][item];
+                    }
+                }
+                result.quantities[item].record(0, trials - result.quantities[item].count());
+            }
+        }
+    }
+
+    private static final class Partial {
+        private final long[] sums;
+        private final long[] sumsOfSquares;
+        private final LongHistogram[] quantities;
+        private final LongHistogram[] dryStreaks;
+
+        private Partial(int nbOfItems) {
+            this.sums = new long[nbOfItems];
+            this.sumsOfSquares = new long[nbOfItems];
+            this.quantities = new LongHistogram[nbOfItems];
+            this.dryStreaks = new LongHistogram[nbOfItems];
+            for (int i = 0; i < nbOfItems; i++) {
+                quantities[i] = new LongHistogram();
+                dryStreaks[i] = new LongHistogram();
+            }
+        }
+
+        private Partial merge(Partial other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+                sumsOfSquares[i] += other.sumsOfSquares[i];
+                quantities[i].add(other.quantities[i]);
+                dryStreaks[i].add(other.dryStreaks[i]);
+            }
+            return this;
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+        private final Simulation simulation;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(Simulation simulation, int from, int to) {
+            this.simulation = simulation;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from == 1) {
+                return simulation.simulate(from);
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(simulation, middle, to);
+            right.fork();
+            Partial left = new ChunkTask(simulation, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+}
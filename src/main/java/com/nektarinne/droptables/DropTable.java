@@ -2,65 +2,146 @@ package com.nektarinne.droptables;
 
 import com.nektarinne.common.Item;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.random.RandomGenerator;
 
 /**
  * Represents a drop table. A drop table yields a number of items. A drop table can link to another (often rarer) drop table.
+ * <p>
+ * Drops use the given {@link RandomGenerator}, or else the one of the current thread (see {@link DropRandom}). A drop
+ * table holds no generator, so it can be shared by threads.
  */
 public class DropTable {
 
     private final Map<Item, Double> itemProbabilities;
     private final Map<DropTable, Double> dropTableProbabilities;
-    private final RandomGenerator random = RandomGenerator.getDefault();
+    private final Mode mode;
+    /**
+     * Lazily built by {@link #compile()}. {@link CompiledDropTable} is immutable, so racing threads may at worst
+     * compile it twice.
+     */
+    private CompiledDropTable compiled;
 
     public DropTable(Map<Item, Double> itemProbabilities, Map<DropTable, Double> dropTableProbabilities) {
+        this(itemProbabilities, dropTableProbabilities, Mode.INDEPENDENT);
+    }
+
+    public DropTable(Map<Item, Double> itemProbabilities, Map<DropTable, Double> dropTableProbabilities, Mode mode) {
         Objects.requireNonNull(itemProbabilities);
         Objects.requireNonNull(dropTableProbabilities);
+        this.mode = Objects.requireNonNull(mode);
         this.itemProbabilities = Map.copyOf(itemProbabilities);
         this.dropTableProbabilities = Map.copyOf(dropTableProbabilities);
+        validate();
     }
 
-    public Map<Item, Integer> drop() {
-        Map<Item, Integer> result = new HashMap<>();
-        itemProbabilities.forEach((item, proba) -> {
-            if (random.nextDouble() <= proba) {
-                result.put(item, 1);
-            }
-        });
-        dropTableProbabilities.forEach((dropTable, proba) -> {
-            if (random.nextDouble() <= proba) {
-                dropTable.drop().forEach((item, numberOfItem) -> result.compute(item, (k, v) -> v == null ? numberOfItem : v + numberOfItem));
-            }
-        });
-        return result;
+    Map<Item, Double> itemProbabilities() {
+        return itemProbabilities;
+    }
+
+    Map<DropTable, Double> dropTableProbabilities() {
+        return dropTableProbabilities;
+    }
+
+    public Mode mode() {
+        return mode;
     }
 
-    public Map<Item, Integer> drop(long times) {
-        Map<Item, Integer> result = new HashMap<>();
-        itemProbabilities.forEach((item, proba) -> {
-            int r = calc(times, proba);
-            if (r > 0) {
-                result.put(item, r);
-            }
-        });
-        dropTableProbabilities.forEach((dropTable, proba) -> {
-            int timesToCall = (int) Math.round(proba * times);
-            dropTable.drop(timesToCall).forEach((item, numberOfItem) -> result.compute(item, (k, v) -> v == null ? numberOfItem : v + numberOfItem));
-        });
+    /**
+     * @return the compiled form of this table, built on first use.
+     */
+    public CompiledDropTable compile() {
+        CompiledDropTable result = compiled;
+        if (result == null) {
+            result = CompiledDropTable.compile(this);
+            compiled = result;
+        }
         return result;
     }
 
-    private int calc(long numberOfDrops, double probability) {
-        long result;
-        do {
-            double rand = random.nextInt(1, 100) / 100.0;
-            // random is more likely to be near 0.5, and much less 0 or 1
-            double weightedR = rand < 0.5 ? (0.5 + (0.1 * Math.log(2 * rand))) : 0.5 + (0.1 * Math.exp(-9 + 10 * rand));
-            result = Math.round(((probability / (1 - weightedR)) - probability) * numberOfDrops);
-        } while (result > numberOfDrops);
-        return (int) result;
+    public Map<Item, Integer> drop() {
+        return drop(DropRandom.current());
+    }
+
+    public Map<Item, Integer> drop(RandomGenerator random) {
+        return compile().drop(random);
+    }
+
+    /**
+     * Drops {@code times} times at once, in a time that does not depend on {@code times}.
+     *
+     * @return the number of each item yielded by {@code times} drops, drawn from their exact distribution.
+     */
+    public Map<Item, Long> drop(long times) {
+        return drop(DropRandom.current(), times);
+    }
+
+    /**
+     * @see #drop(long)
+     */
+    public Map<Item, Long> drop(RandomGenerator random, long times) {
+        return compile().drop(random, times);
+    }
+
+    /**
+     * Drops once into a reusable accumulator. Allocates nothing.
+     */
+    public void drop(DropAccumulator accumulator) {
+        drop(DropRandom.current(), accumulator);
+    }
+
+    /**
+     * @see #drop(DropAccumulator)
+     */
+    public void drop(RandomGenerator random, DropAccumulator accumulator) {
+        compile().drop(random, accumulator);
+    }
+
+    /**
+     * Drops {@code times} times at once into a reusable accumulator. Allocates nothing.
+     */
+    public void drop(long times, DropAccumulator accumulator) {
+        drop(DropRandom.current(), times, accumulator);
+    }
+
+    /**
+     * @see #drop(long, DropAccumulator)
+     */
+    public void drop(RandomGenerator random, long times, DropAccumulator accumulator) {
+        compile().drop(random, times, accumulator);
+    }
+
+    private void validate() {
+        double sum = 0;
+        for (Double proba : itemProbabilities.values()) {
+            sum += checkProbability(proba);
+        }
+        for (Double proba : dropTableProbabilities.values()) {
+            sum += checkProbability(proba);
+        }
+        if (mode == Mode.EXCLUSIVE && sum > 1 + CompiledDropTable.EPSILON) {
+            throw new IllegalArgumentException("The probabilities of an exclusive drop table sum to %f, which is more than 1"
+                    .formatted(sum));
+        }
+    }
+
+    private static double checkProbability(Double proba) {
+        if (proba == null || !(proba >= 0 && proba <= 1)) {
+            throw new IllegalArgumentException("Probability '%s' is outside [0, 1]".formatted(proba));
+        }
+        return proba;
+    }
+
+    public enum Mode {
+        /**
+         * Every item and every linked table is rolled on its own: a single drop can yield all of them.
+         */
+        INDEPENDENT,
+        /**
+         * At most one item or linked table is picked per drop. The probabilities must sum to 1 or less, the remainder
+         * being the chance to get nothing.
+         */
+        EXCLUSIVE,
     }
 }
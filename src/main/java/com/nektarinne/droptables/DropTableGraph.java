@@ -0,0 +1,198 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Drop tables defined by name, linking to each other by name, as they are in data files.
+ * <p>
+ * Unlike {@link DropTable}, which can only link to tables built before it, names can form cycles: {@link Builder#build()}
+ * rejects them with a {@link CyclicDropTableException} naming the tables involved. Otherwise, tables are sorted
+ * topologically and built in that order, each one after the tables it links to, without recursion.
+ */
+public final class DropTableGraph {
+
+    private final List<String> order;
+    private final Map<String, DropTable> tables;
+
+    private DropTableGraph(List<String> order, Map<String, DropTable> tables) {
+        this.order = Collections.unmodifiableList(order);
+        this.tables = Collections.unmodifiableMap(tables);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the table of the given name.
+     */
+    public DropTable get(String name) {
+        DropTable result = tables.get(name);
+        if (result == null) {
+            throw new IllegalArgumentException("Unknown drop table '%s'".formatted(name));
+        }
+        return result;
+    }
+
+    /**
+     * @return the names of the tables, every table coming after the tables it links to.
+     */
+    public List<String> order() {
+        return order;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{order=%s}"
+                .formatted(getClass().getSimpleName(), order);
+    }
+
+    public static class Builder {
+        private final Map<String, Definition> definitions = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder table(String name) {
+            return table(name, DropTable.Mode.INDEPENDENT);
+        }
+
+        public Builder table(String name, DropTable.Mode mode) {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(mode);
+            if (definitions.putIfAbsent(name, new Definition(mode)) != null) {
+                throw new IllegalArgumentException("Drop table '%s' is already defined".formatted(name));
+            }
+            return this;
+        }
+
+        public Builder item(String table, Item item, double probability) {
+            definition(table).items.put(Objects.requireNonNull(item), probability);
+            return this;
+        }
+
+        public Builder link(String table, String linked, double probability) {
+            definition(table).links.put(Objects.requireNonNull(linked), probability);
+            return this;
+        }
+
+        /**
+         * @throws CyclicDropTableException if tables link to each other in a cycle.
+         */
+        public DropTableGraph build() {
+            for (Map.Entry<String, Definition> entry : definitions.entrySet()) {
+                for (String linked : entry.getValue().links.keySet()) {
+                    if (!definitions.containsKey(linked)) {
+                        throw new IllegalArgumentException("Drop table '%s' links to unknown drop table '%s'"
+                                .formatted(entry.getKey(), linked));
+                    }
+                }
+            }
+            List<String> order = sort();
+            Map<String, DropTable> tables = new HashMap<>();
+            for (String name : order) {
+                Definition definition = definitions.get(name);
+                Map<DropTable, Double> links = new HashMap<>();
+                definition.links.forEach((linked, probability) -> links.put(tables.get(linked), probability));
+                tables.put(name, new DropTable(definition.items, links, definition.mode));
+            }
+            return new DropTableGraph(order, tables);
+        }
+
+        /**
+         * Kahn's algorithm, from the tables linking to no other table. The tables left over all link to another one
+         * left over, so following their links from any of them runs into a cycle.
+         */
+        private List<String> sort() {
+            Map<String, Integer> remainingLinks = new HashMap<>();
+            Map<String, List<String>> linkedBy = new HashMap<>();
+            Deque<String> ready = new ArrayDeque<>();
+            definitions.forEach((name, definition) -> {
+                remainingLinks.put(name, definition.links.size());
+                definition.links.keySet().forEach(linked -> linkedBy.computeIfAbsent(linked, k -> new ArrayList<>()).add(name));
+                if (definition.links.isEmpty()) {
+                    ready.add(name);
+                }
+            });
+            List<String> result = new ArrayList<>(definitions.size());
+            while (!ready.isEmpty()) {
+                String name = ready.poll();
+                result.add(name);
+                for (String parent : linkedBy.getOrDefault(name, List.of())) {
+                    if (remainingLinks.merge(parent, -1, Integer::sum) == 0) {
+                        ready.add(parent);
+                    }
+                }
+            }
+            if (result.size() < definitions.size()) {
+                throw CyclicDropTableException.create(findCycle(remainingLinks));
+            }
+            return result;
+        }
+
+        private List<String> findCycle(Map<String, Integer> remainingLinks) {
+            String current = null;
+            for (Map.Entry<String, Integer> entry : remainingLinks.entrySet()) {
+                if (entry.getValue() > 0) {
+                    current = entry.getKey();
+                    break;
+                }
+            }
+            Set<String> path = new LinkedHashSet<>();
+            while (path.add(current)) {
+                for (String linked : definitions.get(current).links.keySet()) {
+                    if (remainingLinks.get(linked) > 0) {
+                        current = linked;
+                        break;
+                    }
+                }
+            }
+            List<String> result = new ArrayList<>();
+            boolean inCycle = false;
+            for (String name : path) {
+                inCycle |= name.equals(current);
+                if (inCycle) {
+                    result.add(name);
+                }
+            }
+            result.add(current);
+            return result;
+        }
+
+        private Definition definition(String table) {
+            Definition result = definitions.get(Objects.requireNonNull(table));
+            if (result == null) {
+                throw new IllegalArgumentException("Unknown drop table '%s'".formatted(table));
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "%s{tables=%s}"
+                    .formatted(getClass().getSimpleName(), definitions.keySet());
+        }
+    }
+
+    private static final class Definition {
+        private final DropTable.Mode mode;
+        private final Map<Item, Double> items = new LinkedHashMap<>();
+        private final Map<String, Double> links = new LinkedHashMap<>();
+
+        private Definition(DropTable.Mode mode) {
+            this.mode = mode;
+        }
+    }
+}
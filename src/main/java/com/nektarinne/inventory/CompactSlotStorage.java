@@ -0,0 +1,179 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the slots in three parallel arrays: the {@link Item#id() id} of the item of the stack, its quantity, and the
+ * id of the item the slot is locked to. No object is kept per slot.
+ * <p>
+ * {@link Slot} and {@link ItemStack} objects are only created when asked for, as detached views: changing them does
+ * not change the storage.
+ */
+class CompactSlotStorage implements SlotStorage {
+
+    private final int[] itemIds;
+    private final int[] quantities;
+    private final int[] lockedItemIds;
+
+    CompactSlotStorage(List<Slot> slots, int nbOfSlots) {
+        this.itemIds = new int[nbOfSlots];
+        this.quantities = new int[nbOfSlots];
+        this.lockedItemIds = new int[nbOfSlots];
+        Arrays.fill(itemIds, NONE);
+        Arrays.fill(lockedItemIds, NONE);
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            restore(i, slot.item(), slot.itemStack(), slot.itemStack() == null ? 0 : slot.itemStack().quantity());
+        }
+    }
+
+    @Override
+    public int size() {
+        return itemIds.length;
+    }
+
+    @Override
+    public Slot slot(int slotIndex) {
+        return Slot.builder()
+                .item(lockedItem(slotIndex))
+                .itemStack(itemStack(slotIndex))
+                .build();
+    }
+
+    @Override
+    public ItemStack itemStack(int slotIndex) {
+        if (itemIds[slotIndex] == NONE) {
+            return null;
+        }
+        return ItemStack.builder(item(itemIds[slotIndex])).quantity(quantities[slotIndex]).build();
+    }
+
+    @Override
+    public ItemStack liveItemStack(int slotIndex) {
+        return null;
+    }
+
+    @Override
+    public Item lockedItem(int slotIndex) {
+        return lockedItemIds[slotIndex] == NONE ? null : item(lockedItemIds[slotIndex]);
+    }
+
+    @Override
+    public int itemId(int slotIndex) {
+        return itemIds[slotIndex];
+    }
+
+    @Override
+    public int lockedItemId(int slotIndex) {
+        return lockedItemIds[slotIndex];
+    }
+
+    @Override
+    public int quantity(int slotIndex) {
+        return quantities[slotIndex];
+    }
+
+    @Override
+    public void lock(int slotIndex) {
+        if (isEmpty(slotIndex)) {
+            throw new IllegalArgumentException("Unable to lock an empty slot");
+        }
+        if (itemIds[slotIndex] != NONE) {
+            lockedItemIds[slotIndex] = itemIds[slotIndex];
+        }
+    }
+
+    @Override
+    public void unlock(int slotIndex) {
+        if (isEmpty(slotIndex)) {
+            throw new IllegalArgumentException("Unable to unlock an empty slot");
+        }
+        lockedItemIds[slotIndex] = NONE;
+    }
+
+    @Override
+    public int add(int slotIndex, Item item, int quantity) {
+        int itemId = item.id();
+        if (lockedItemIds[slotIndex] != NONE && lockedItemIds[slotIndex] != itemId) {
+            return quantity;
+        }
+        if (itemIds[slotIndex] == NONE) {
+            int placed = Math.min(quantity, item.stackSize());
+            itemIds[slotIndex] = itemId;
+            quantities[slotIndex] = placed;
+            return quantity - placed;
+        }
+        if (itemIds[slotIndex] != itemId) {
+            throw new IllegalStateException("Unable to add %dx%s to %s".formatted(quantity, item, slot(slotIndex)));
+        }
+        // same as ItemStack#merge
+        int absorbed = Math.min(quantity, item.stackSize() - quantities[slotIndex]);
+        quantities[slotIndex] += absorbed;
+        return quantity - absorbed;
+    }
+
+    @Override
+    public ItemStack remove(int slotIndex) {
+        ItemStack result = itemStack(slotIndex);
+        itemIds[slotIndex] = NONE;
+        quantities[slotIndex] = 0;
+        return result;
+    }
+
+    @Override
+    public void restore(int slotIndex, Item item, ItemStack itemStack, int quantity) {
+        lockedItemIds[slotIndex] = item == null ? NONE : item.id();
+        itemIds[slotIndex] = itemStack == null ? NONE : itemStack.item().id();
+        quantities[slotIndex] = itemStack == null ? 0 : quantity;
+    }
+
+    @Override
+    public void set(int slotIndex, int itemId, int quantity, int lockedItemId) {
+        itemIds[slotIndex] = itemId;
+        quantities[slotIndex] = itemId == NONE ? 0 : quantity;
+        lockedItemIds[slotIndex] = lockedItemId;
+    }
+
+    @Override
+    public void permute(int[] order) {
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] < 0) {
+                continue;
+            }
+            // follow the cycle starting at i
+            int itemId = itemIds[i];
+            int quantity = quantities[i];
+            int lockedItemId = lockedItemIds[i];
+            int j = i;
+            while (true) {
+                int k = order[j];
+                order[j] = ~k;
+                if (k == i) {
+                    itemIds[j] = itemId;
+                    quantities[j] = quantity;
+                    lockedItemIds[j] = lockedItemId;
+                    break;
+                }
+                itemIds[j] = itemIds[k];
+                quantities[j] = quantities[k];
+                lockedItemIds[j] = lockedItemIds[k];
+                j = k;
+            }
+        }
+    }
+
+    private static Item item(int itemId) {
+        return ItemRegistry.global().get(itemId);
+    }
+
+    @Override
+    public String toString() {
+        return "%s{itemIds=%s, quantities=%s, lockedItemIds=%s}"
+                .formatted(getClass().getSimpleName(), Arrays.toString(itemIds), Arrays.toString(quantities),
+                        Arrays.toString(lockedItemIds));
+    }
+}
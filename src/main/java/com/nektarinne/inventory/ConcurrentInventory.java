@@ -0,0 +1,381 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe variant of {@link Inventory}, shared by several threads (trade, auction house, auto-loot...).
+ * <p>
+ * Slots are guarded by striped locks: operations on a single slot only take the lock of its stripe, so they do not
+ * contend with operations on slots of other stripes. Operations spanning every slot ({@link #add(ItemStack)},
+ * {@link #sort()}) take all the stripe locks, in order, and are therefore atomic.
+ * <p>
+ * The {@link Slot slots} and {@link ItemStack item stacks} returned by this class are copies: changing them does not
+ * change the inventory.
+ */
+public class ConcurrentInventory {
+
+    private static final int DEFAULT_NB_OF_SLOTS = 27;
+    private static final int MAX_STRIPES = 64;
+    private static final AtomicLong LOCK_ORDER = new AtomicLong();
+    private final int nbOfSlots;
+    private final Slot[] slots;
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+    /**
+     * Order in which transactions lock inventories, so that two of them cannot deadlock.
+     */
+    private final long lockOrder = LOCK_ORDER.getAndIncrement();
+    /**
+     * Set by {@link InventoryTransaction} while it commits, with every lock held.
+     */
+    private SlotChangeListener listener;
+
+    private ConcurrentInventory(Builder builder) {
+        if (builder.nbOfSlots < 0) {
+            throw new IllegalArgumentException("nbOfSlots '%d' is invalid"
+                    .formatted(builder.nbOfSlots));
+        }
+        if (builder.nbOfSlots < builder.slots.size()) {
+            throw new IllegalArgumentException("nbOfSlots '%d' is less than slots size '%d'"
+                    .formatted(builder.nbOfSlots, builder.slots.size()));
+        }
+        this.nbOfSlots = builder.nbOfSlots;
+        this.slots = new Slot[nbOfSlots];
+        for (int i = 0; i < nbOfSlots; i++) {
+            this.slots[i] = i < builder.slots.size() ? Slot.from(builder.slots.get(i)) : Slot.empty();
+        }
+        int nbOfStripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, 4 * Runtime.getRuntime().availableProcessors())));
+        this.locks = new ReentrantLock[nbOfStripes];
+        for (int i = 0; i < nbOfStripes; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.stripeMask = nbOfStripes - 1;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    public int nbOfSlots() {
+        return nbOfSlots;
+    }
+
+    /**
+     * @return a copy of the slot.
+     */
+    public Slot getSlot(int slotIndex) {
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            return Slot.from(slots[slotIndex]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the item stack, or null.
+     */
+    public ItemStack getItemStack(int slotIndex) {
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            ItemStack itemStack = slots[slotIndex].itemStack();
+            return itemStack == null ? null : ItemStack.from(itemStack);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Item getItem(int slotIndex) {
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            return slots[slotIndex].item();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void lock(int slotIndex) {
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            beforeChange(slotIndex);
+            slots[slotIndex].lock();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unlock(int slotIndex) {
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            beforeChange(slotIndex);
+            slots[slotIndex].unlock();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ItemStack add(int slotIndex, ItemStack itemStack) {
+        Objects.requireNonNull(itemStack);
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            beforeChange(slotIndex);
+            return slots[slotIndex].add(itemStack);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ItemStack remove(int slotIndex) {
+        ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+        lock.lock();
+        try {
+            beforeChange(slotIndex);
+            return slots[slotIndex].remove();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the given {@link ItemStack} to the slots already holding (or locked to) its item, then to the first empty
+     * slot. Atomic.
+     *
+     * @return the part of the stack that did not fit, or null.
+     */
+    public ItemStack add(ItemStack itemStack) {
+        Objects.requireNonNull(itemStack);
+        if (itemStack.quantity() == 0) {
+            throw EmptyItemStackException.create(itemStack);
+        }
+        Item item = itemStack.item();
+        int remaining = itemStack.quantity();
+        lockAll();
+        try {
+            for (int i = 0; i < nbOfSlots; i++) {
+                Slot slot = slots[i];
+                if (!slot.isEmpty() && (slot.item() == item
+                        || (slot.itemStack() != null && slot.itemStack().item() == item))) {
+                    beforeChange(i);
+                    remaining = slot.add(item, remaining);
+                    if (remaining == 0) {
+                        return null;
+                    }
+                }
+            }
+            for (int i = 0; i < nbOfSlots; i++) {
+                if (slots[i].isEmpty()) {
+                    beforeChange(i);
+                    remaining = slots[i].add(item, remaining);
+                    break;
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+        return remaining == 0 ? null : ItemStack.builder(item).quantity(remaining).build();
+    }
+
+    /**
+     * Atomic.
+     */
+    public void sort() {
+        lockAll();
+        try {
+            Arrays.sort(slots);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    TransactionTarget transactionTarget() {
+        return new TransactionTarget() {
+            @Override
+            public long lockOrder() {
+                return lockOrder;
+            }
+
+            @Override
+            public void acquire(SlotChangeListener listener) {
+                lockAll();
+                ConcurrentInventory.this.listener = listener;
+            }
+
+            @Override
+            public void release() {
+                ConcurrentInventory.this.listener = null;
+                unlockAll();
+            }
+
+            @Override
+            public int nbOfSlots() {
+                return nbOfSlots;
+            }
+
+            @Override
+            public boolean holdsItemStack(int slotIndex) {
+                ReentrantLock lock = lockFor(checkSlotIndex(slotIndex));
+                lock.lock();
+                try {
+                    return slots[slotIndex].itemStack() != null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public boolean canFit(List<ItemStack> itemStacks) {
+                lockAll();
+                try {
+                    return ConcurrentInventory.this.canFit(itemStacks);
+                } finally {
+                    unlockAll();
+                }
+            }
+
+            @Override
+            public ItemStack add(ItemStack itemStack) {
+                return ConcurrentInventory.this.add(itemStack);
+            }
+
+            @Override
+            public ItemStack add(int slotIndex, ItemStack itemStack) {
+                return ConcurrentInventory.this.add(slotIndex, itemStack);
+            }
+
+            @Override
+            public ItemStack remove(int slotIndex) {
+                return ConcurrentInventory.this.remove(slotIndex);
+            }
+
+            @Override
+            public void restore(int slotIndex, int itemId, int quantity, int lockedItemId, ItemStack itemStack) {
+                Item lockedItem = lockedItemId == SlotStorage.NONE ? null : ItemRegistry.global().get(lockedItemId);
+                slots[slotIndex].restore(lockedItem, itemStack, quantity);
+            }
+        };
+    }
+
+    /**
+     * Same count as {@link Inventory#canFit(java.util.Collection)}, by item: the room left in the slots holding or
+     * locked to each item, then the empty slots. Every lock must be held.
+     */
+    private boolean canFit(List<ItemStack> itemStacks) {
+        int nbOfEmptySlots = 0;
+        for (Slot slot : slots) {
+            if (slot.isEmpty()) {
+                nbOfEmptySlots++;
+            }
+        }
+        long neededEmptySlots = 0;
+        for (int i = 0; i < itemStacks.size() && neededEmptySlots <= nbOfEmptySlots; i++) {
+            Item item = itemStacks.get(i).item();
+            if (firstIndexOf(itemStacks, item) < i) {
+                // counted with its first stack
+                continue;
+            }
+            long missing = 0;
+            for (int j = i; j < itemStacks.size(); j++) {
+                if (itemStacks.get(j).item() == item) {
+                    missing += itemStacks.get(j).quantity();
+                }
+            }
+            for (Slot slot : slots) {
+                ItemStack itemStack = slot.itemStack();
+                if (itemStack != null ? itemStack.item() == item : slot.item() == item) {
+                    missing -= item.stackSize() - (itemStack == null ? 0 : itemStack.quantity());
+                }
+            }
+            if (missing > 0) {
+                neededEmptySlots += (missing + item.stackSize() - 1) / item.stackSize();
+            }
+        }
+        return neededEmptySlots <= nbOfEmptySlots;
+    }
+
+    private static int firstIndexOf(List<ItemStack> itemStacks, Item item) {
+        int result = 0;
+        while (itemStacks.get(result).item() != item) {
+            result++;
+        }
+        return result;
+    }
+
+    private void beforeChange(int slotIndex) {
+        if (listener != null) {
+            Slot slot = slots[slotIndex];
+            ItemStack itemStack = slot.itemStack();
+            listener.beforeChange(slotIndex, itemStack == null ? SlotStorage.NONE : itemStack.item().id(),
+                    itemStack == null ? 0 : itemStack.quantity(),
+                    slot.item() == null ? SlotStorage.NONE : slot.item().id(), itemStack);
+        }
+    }
+
+    private int checkSlotIndex(int slotIndex) {
+        if (slotIndex < 0 || slotIndex >= nbOfSlots) {
+            throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]".formatted(slotIndex, nbOfSlots - 1));
+        }
+        return slotIndex;
+    }
+
+    private ReentrantLock lockFor(int slotIndex) {
+        return locks[slotIndex & stripeMask];
+    }
+
+    /**
+     * Always in the same order, so that two threads locking everything cannot deadlock.
+     */
+    void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    public static class Builder {
+        private List<Slot> slots;
+        private int nbOfSlots;
+
+        private Builder() {
+            this.slots = List.of();
+            this.nbOfSlots = DEFAULT_NB_OF_SLOTS;
+        }
+
+        Builder withSlots(List<Slot> slots) {
+            this.slots = slots;
+            return this;
+        }
+
+        Builder withNbOfSlots(int nbOfSlots) {
+            this.nbOfSlots = nbOfSlots;
+            return this;
+        }
+
+        public ConcurrentInventory build() {
+            return new ConcurrentInventory(this);
+        }
+
+        @Override
+        public String toString() {
+            return "%s{nbOfSlots=%d, slots=%s}"
+                    .formatted(getClass().getSimpleName(), nbOfSlots, slots);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.nektarinne.inventory;
+
+public class CorruptedInventoryException extends RuntimeException {
+
+    private CorruptedInventoryException(String message) {
+        super(message);
+    }
+
+    private CorruptedInventoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public static CorruptedInventoryException create(String reason) {
+        return new CorruptedInventoryException("Unable to decode the inventory: %s".formatted(reason));
+    }
+
+    public static CorruptedInventoryException create(String reason, Throwable cause) {
+        return new CorruptedInventoryException("Unable to decode the inventory: %s".formatted(reason), cause);
+    }
+}
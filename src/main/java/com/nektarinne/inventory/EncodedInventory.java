@@ -0,0 +1,91 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view over an inventory encoded by {@link InventoryCodec}. Only the palette has been decoded: each slot is
+ * decoded from the underlying buffer when accessed.
+ */
+public class EncodedInventory {
+
+    private static final int NONE = SlotStorage.NONE;
+    private final ByteBuffer slots;
+    private final int nbOfSlots;
+    private final Item[] palette;
+
+    EncodedInventory(ByteBuffer slots, int nbOfSlots, Item[] palette) {
+        this.slots = slots;
+        this.nbOfSlots = nbOfSlots;
+        this.palette = palette;
+    }
+
+    public int nbOfSlots() {
+        return nbOfSlots;
+    }
+
+    public ItemStack getItemStack(int slotIndex) {
+        Item item = item(checkSlotIndex(slotIndex), 0);
+        if (item == null) {
+            return null;
+        }
+        try {
+            return ItemStack.builder(item).quantity(quantity(slotIndex)).build();
+        } catch (IllegalArgumentException e) {
+            throw CorruptedInventoryException.create("invalid quantity in slot %d".formatted(slotIndex), e);
+        }
+    }
+
+    public Item getItem(int slotIndex) {
+        return item(checkSlotIndex(slotIndex), 2 * Integer.BYTES);
+    }
+
+    /**
+     * Decodes every slot into a new inventory.
+     */
+    public Inventory toInventory(Inventory.Storage storage) {
+        Inventory result = Inventory.builder()
+                .withNbOfSlots(nbOfSlots)
+                .withStorage(storage)
+                .build();
+        for (int i = 0; i < nbOfSlots; i++) {
+            Item item = item(i, 0);
+            Item lockedItem = item(i, 2 * Integer.BYTES);
+            int quantity = quantity(i);
+            if (item != null && (quantity < 1 || quantity > item.stackSize())) {
+                throw CorruptedInventoryException.create("invalid quantity in slot %d".formatted(i));
+            }
+            result.set(i, item == null ? NONE : item.id(), quantity, lockedItem == null ? NONE : lockedItem.id());
+        }
+        return result;
+    }
+
+    private Item item(int slotIndex, int offset) {
+        int reference = slots.getInt(slotIndex * InventoryCodec.SLOT_SIZE + offset);
+        if (reference == NONE) {
+            return null;
+        }
+        if (reference < 0 || reference >= palette.length) {
+            throw CorruptedInventoryException.create("unknown item %d in slot %d".formatted(reference, slotIndex));
+        }
+        return palette[reference];
+    }
+
+    private int quantity(int slotIndex) {
+        return slots.getInt(slotIndex * InventoryCodec.SLOT_SIZE + Integer.BYTES);
+    }
+
+    private int checkSlotIndex(int slotIndex) {
+        if (slotIndex < 0 || slotIndex >= nbOfSlots) {
+            throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]".formatted(slotIndex, nbOfSlots - 1));
+        }
+        return slotIndex;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{nbOfSlots=%d, paletteSize=%d}"
+                .formatted(getClass().getSimpleName(), nbOfSlots, palette.length);
+    }
+}
@@ -1,17 +1,103 @@
 package com.nektarinne.inventory;
 
 import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+import com.nektarinne.metrics.Counter;
+import com.nektarinne.metrics.Metrics;
+import com.nektarinne.metrics.Subsystem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
+/**
+ * A fixed number of {@link Slot slots} holding {@link ItemStack item stacks}.
+ * <p>
+ * The inventory keeps an index of its empty slots and, for each item, of the slots able to take more of it (partial
+ * stacks and slots locked to it), so that {@link #add(ItemStack)} only visits the slots it fills. It also keeps, for
+ * each item, the slots holding it and their total quantity, so that {@link #count(Item)} costs O(1) and
+ * {@link #removeQuantity(Item, int)} only visits the slots it drains. The index is kept up to date by the methods of
+ * this class: slots and stacks should not be modified behind its back, use {@link #quantity(int, int)} to change the
+ * quantity of a stack.
+ * <p>
+ * Slots are stored either as {@link Slot} objects ({@link Storage#OBJECTS}, the default) or as parallel primitive
+ * arrays ({@link Storage#COMPACT}), see {@link Storage}.
+ * <p>
+ * The inventory also keeps a primitive sort key per slot and the range of the slots changed since the last
+ * {@link #sort()}, which only re-sorts that range and merges it with the rest, still sorted.
+ * <p>
+ * {@link #snapshot()} gives an immutable copy of the inventory to read from other threads, sharing with the previous
+ * one the chunks of slots that have not changed.
+ * <p>
+ * Built {@link Builder#withJournal(int) with a journal}, the inventory records the state of each slot after each of
+ * its changes, so that copies of it (on clients) can be brought up to date with {@link #deltasSince(long)}.
+ */
 public class Inventory {
 
     private static final int DEFAULT_NB_OF_SLOTS = 27;
+    private static final int NOT_INDEXED = -1;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    /**
+     * Working memory of {@link #addAll(Collection)} and {@link #canFit(Collection)}, shared by the inventories of a
+     * thread rather than kept by each of them.
+     */
+    private static final ThreadLocal<ItemBatch> BATCHES = ThreadLocal.withInitial(ItemBatch::new);
+    private static final Counter ADD_CALLS = Metrics.global().counter(Subsystem.INVENTORY, "add.calls");
+    private static final Counter ADD_LEFTOVERS = Metrics.global().counter(Subsystem.INVENTORY, "add.leftovers");
+    private static final Counter ADD_SCANNED_SLOTS = Metrics.global().counter(Subsystem.INVENTORY, "add.scannedSlots");
     private final int nbOfSlots;
-    private final List<Slot> slots;
+    private final SlotStorage slots;
+    private final BitSet emptySlots;
+    /**
+     * Per item, the slots able to take more of it, the slots holding it and their total quantity. Only has entries
+     * for the items the inventory deals with.
+     */
+    private final ItemIndex itemIndex;
+    /**
+     * Item id under which each slot is a candidate in {@link #itemIndex}, or {@link #NOT_INDEXED}.
+     */
+    private final int[] indexedItemIds;
+    /**
+     * Item id and quantity under which each slot is counted as holding in {@link #itemIndex}.
+     */
+    private final int[] heldItemIds;
+    private final int[] heldQuantities;
+    /**
+     * Per slot, the {@link ItemRegistry#sortRank(int) rank} of its locked item in the high half and the one of the
+     * item of its stack in the low half, no item ranking last. Ordering by key, then by decreasing quantity, is the
+     * natural order of {@link Slot}.
+     */
+    private final long[] sortKeys;
+    /**
+     * Size of the registry when {@link #sortKeys} were computed: ranks change when items are interned.
+     */
+    private int sortKeysRegistrySize;
+    /**
+     * Slots changed since the last sort are in [dirtyFrom, dirtyTo], none if {@code dirtyFrom > dirtyTo}.
+     */
+    private int dirtyFrom;
+    private int dirtyTo;
+    /**
+     * Working memory of {@link #sort()}, allocated on first sort.
+     */
+    private int[] sortOrder;
+    private int[] sortBuffer;
+    /**
+     * Null unless asked for.
+     */
+    private final InventoryJournal journal;
+    /**
+     * Last snapshot taken, and the chunks of slots changed since, see {@link InventorySnapshot}.
+     */
+    private InventorySnapshot snapshot;
+    private final BitSet snapshotChangedChunks;
+    /**
+     * Set by {@link InventoryTransaction} while it commits.
+     */
+    private SlotChangeListener listener;
 
     private Inventory(Builder builder) {
         if (builder.nbOfSlots < 0) {
@@ -22,120 +108,682 @@ public class Inventory {
             throw new IllegalArgumentException("nbOfSlots '%d' is less than slots size '%d'"
                     .formatted(builder.nbOfSlots, builder.slots.size()));
         }
-        this.slots = new ArrayList<>(builder.slots);
-        // Ensure the list has the correct number of slots by adding empty slots if needed.
-        while (this.slots.size() < builder.nbOfSlots) {
-            this.slots.add(Slot.empty());
-        }
+        this.slots = builder.storage == Storage.COMPACT
+                ? new CompactSlotStorage(builder.slots, builder.nbOfSlots)
+                : new ObjectSlotStorage(builder.slots, builder.nbOfSlots);
         this.nbOfSlots = builder.nbOfSlots;
+        this.emptySlots = new BitSet(nbOfSlots);
+        this.itemIndex = new ItemIndex(nbOfSlots);
+        this.indexedItemIds = new int[nbOfSlots];
+        this.heldItemIds = new int[nbOfSlots];
+        this.heldQuantities = new int[nbOfSlots];
+        this.sortKeys = new long[nbOfSlots];
+        this.dirtyFrom = 0;
+        this.dirtyTo = nbOfSlots - 1;
+        this.snapshotChangedChunks = new BitSet(InventorySnapshot.nbOfChunks(nbOfSlots));
+        this.journal = builder.journalCapacity == 0 ? null : new InventoryJournal(builder.journalCapacity);
+        reindex();
     }
 
     static Builder builder() {
         return new Builder();
     }
 
+    public int nbOfSlots() {
+        return nbOfSlots;
+    }
+
+    /**
+     * @return the slot. With {@link Storage#COMPACT}, a detached view of it.
+     */
     public Slot getSlot(int slotIndex) {
-        if (slotIndex < 0 || slotIndex >= nbOfSlots) {
-            throw new IllegalArgumentException("SlotIndex '" + slotIndex + "' is outside [0, " + (nbOfSlots - 1) + "]");
-        }
-        return slots.get(slotIndex);
+        return slots.slot(checkSlotIndex(slotIndex));
     }
 
+    /**
+     * Sorts the slots in their natural order, see {@link Slot#compareTo(Slot)}. Does nothing if no slot has changed
+     * since the last sort.
+     */
     public void sort() {
-        this.slots.sort(null);  // assuming Slot implements Comparable
+        if (sortKeysRegistrySize != ItemRegistry.global().size()) {
+            // ranks may have shifted, but not their order: the slots sorted so far still are
+            sortKeysRegistrySize = ItemRegistry.global().size();
+            for (int i = 0; i < nbOfSlots; i++) {
+                sortKeys[i] = sortKey(i);
+            }
+        }
+        if (dirtyFrom > dirtyTo) {
+            return;
+        }
+        if (sortOrder == null) {
+            sortOrder = new int[nbOfSlots];
+            sortBuffer = new int[nbOfSlots];
+        }
+        int[] order = sortOrder;
+        int[] sorted = sortBuffer;
+        int from = dirtyFrom;
+        int to = dirtyTo + 1;
+        for (int i = from; i < to; i++) {
+            sorted[i] = i;
+        }
+        mergeSort(sorted, order, from, to);
+        // merge the sorted dirty range with the slots outside of it, which are still sorted
+        int outside = from == 0 ? to : 0;
+        int inside = from;
+        for (int i = 0; i < nbOfSlots; i++) {
+            if (outside < nbOfSlots && (inside == to || compareSlots(outside, sorted[inside]) <= 0)) {
+                order[i] = outside++;
+                if (outside == from) {
+                    outside = to;
+                }
+            } else {
+                order[i] = sorted[inside++];
+            }
+        }
+        slots.permute(order);
+        for (int i = 0; i < nbOfSlots; i++) {
+            // permute complemented the order
+            if (~order[i] != i) {
+                afterChange(i);
+            }
+        }
+        dirtyFrom = nbOfSlots;
+        dirtyTo = -1;
+    }
+
+    /**
+     * Sorts the slots, then merges the partial stacks of a same item, sharing the same locked item (or none), into as
+     * few stacks as possible. The slots emptied are sorted last.
+     */
+    public void sortAndMergeStacks() {
+        sort();
+        ItemRegistry registry = ItemRegistry.global();
+        int start = 0;
+        while (start < nbOfSlots) {
+            int end = start + 1;
+            while (end < nbOfSlots && sortKeys[end] == sortKeys[start]) {
+                end++;
+            }
+            int itemId = slots.itemId(start);
+            if (itemId != SlotStorage.NONE) {
+                // [start, end[ holds stacks of the same item, by decreasing quantity: move the last ones to the first
+                int stackSize = registry.get(itemId).stackSize();
+                int target = start;
+                int source = end - 1;
+                while (target < source) {
+                    int targetQuantity = slots.quantity(target);
+                    if (targetQuantity == stackSize) {
+                        target++;
+                        continue;
+                    }
+                    int sourceQuantity = slots.quantity(source);
+                    int moved = Math.min(sourceQuantity, stackSize - targetQuantity);
+                    set(target, itemId, targetQuantity + moved, slots.lockedItemId(target));
+                    if (moved == sourceQuantity) {
+                        set(source, SlotStorage.NONE, 0, slots.lockedItemId(source));
+                        source--;
+                    } else {
+                        set(source, itemId, sourceQuantity - moved, slots.lockedItemId(source));
+                    }
+                }
+            }
+            start = end;
+        }
+        sort();
     }
 
+    /**
+     * @return the stack, or null. With {@link Storage#COMPACT}, a detached view of it. With {@link Storage#OBJECTS},
+     * the live stack: change its quantity with {@link #quantity(int, int)}, the only change to a stack the index
+     * follows.
+     */
     public ItemStack getItemStack(int slotIndex) {
-        return this.getSlot(slotIndex).itemStack();
+        return slots.itemStack(checkSlotIndex(slotIndex));
     }
 
     public Item getItem(int slotIndex) {
-        return this.getSlot(slotIndex).item();
+        return slots.lockedItem(checkSlotIndex(slotIndex));
     }
 
     public void lock(int slotIndex) {
-        Slot slot = this.getSlot(slotIndex);
-        if (slot.isEmpty()) {
-            throw new IllegalArgumentException("Unable to lock an empty slot");
-        }
-        slot.item(slot.itemStack().item());
+        checkSlotIndex(slotIndex);
+        beforeChange(slotIndex);
+        slots.lock(slotIndex);
+        afterChange(slotIndex);
     }
 
     public void unlock(int slotIndex) {
-        Slot slot = this.getSlot(slotIndex);
-        if (slot.isEmpty()) {
-            throw new IllegalArgumentException("Unable to unlock an empty slot");
-        }
-        slot.item(null);
+        checkSlotIndex(slotIndex);
+        beforeChange(slotIndex);
+        slots.unlock(slotIndex);
+        afterChange(slotIndex);
     }
 
+    /**
+     * Adds the given {@link ItemStack} to the slots already holding (or locked to) its item, then to the first empty
+     * slot. The given stack is left untouched.
+     *
+     * @return the part of the stack that did not fit, or null.
+     */
     public ItemStack add(ItemStack itemStack) {
         Objects.requireNonNull(itemStack);
         if (itemStack.quantity() == 0) {
             throw EmptyItemStackException.create(itemStack);
         }
-        List<Slot> candidates = slots.stream()
-                .filter(slot -> !slot.isEmpty())
-                .filter(slot -> Objects.equals(slot.item(), itemStack.item()) || Objects.equals(slot.itemStack().item(), itemStack.item()))
-                .toList();
-        ItemStack result = ItemStack.from(itemStack);
-        for (Slot slot : candidates) {
-            if (slot.itemStack() == null) {
-                slot.itemStack(ItemStack.from(result));
-                return null;
-            }
-            result = slot.itemStack().add(result);
-            if (result == null) {
-                return null;
-            }
-        }
-        Optional<Slot> emptySlot = slots.stream()
-                .filter(Slot::isEmpty)
-                .findFirst();
-        if (emptySlot.isPresent()) {
-            emptySlot.get().itemStack(ItemStack.from(result));
-            return null;
+        int left = add(itemStack.item(), itemStack.quantity(), 1);
+        return left == 0 ? null : ItemStack.builder(itemStack.item()).quantity(left).build();
+    }
+
+    /**
+     * Adds {@code quantity} items to the slots already holding (or locked to) the item, then to as many empty slots
+     * as needed. Allocates no {@link ItemStack} for the merges, only for the stacks placed in empty slots with
+     * {@link Storage#OBJECTS}.
+     *
+     * @param quantity the number of items to add, may exceed the stack size.
+     * @return the number of items that did not fit.
+     */
+    public int add(Item item, int quantity) {
+        Objects.requireNonNull(item);
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Unable to add %d %s, at least 1 is expected".formatted(quantity, item));
+        }
+        return add(item, quantity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Merges into the candidate slots first, then fills up to {@code maxEmptySlots} empty slots.
+     */
+    private int add(Item item, int quantity, int maxEmptySlots) {
+        int remaining = quantity;
+        int scanned = 0;
+        BitSet candidates = itemIndex.candidates(item.id());
+        if (candidates != null) {
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                scanned++;
+                if (candidateItemId(i) != item.id()) {
+                    // stale entry
+                    reindex(i);
+                    continue;
+                }
+                beforeChange(i);
+                remaining = slots.add(i, item, remaining);
+                afterChange(i);
+                if (remaining == 0) {
+                    return recordAdd(scanned, 0);
+                }
+            }
+        }
+        int filled = 0;
+        for (int i = emptySlots.nextSetBit(0); i >= 0 && filled < maxEmptySlots; i = emptySlots.nextSetBit(i + 1)) {
+            scanned++;
+            if (slots.isEmpty(i)) {
+                beforeChange(i);
+                remaining = slots.add(i, item, remaining);
+                afterChange(i);
+                filled++;
+                if (remaining == 0) {
+                    return recordAdd(scanned, 0);
+                }
+                continue;
+            }
+            // stale entry
+            reindex(i);
         }
+        return recordAdd(scanned, remaining);
+    }
+
+    /**
+     * Updates the {@link Subsystem#INVENTORY} metrics of an add that visited {@code scanned} slots.
+     */
+    private static int recordAdd(int scanned, int remaining) {
+        ADD_CALLS.increment();
+        ADD_SCANNED_SLOTS.add(scanned);
+        if (remaining > 0) {
+            ADD_LEFTOVERS.increment();
+        }
+        return remaining;
+    }
+
+    /**
+     * Adds the given stacks, grouped by item, the same way as {@link #add(ItemStack)} but filling as many empty slots
+     * as needed. Costs one visit of the slots taking each item, instead of one per stack.
+     *
+     * @return the stacks that did not fit, of at most the stack size of their item.
+     */
+    public List<ItemStack> addAll(Collection<ItemStack> itemStacks) {
+        ItemBatch batch = batch(itemStacks);
+        List<ItemStack> result = new ArrayList<>();
+        ItemRegistry registry = ItemRegistry.global();
+        for (int position = 0; position < batch.size(); position++) {
+            Item item = registry.get(batch.itemId(position));
+            long remaining = batch.quantity(item.id());
+            while (remaining > 0) {
+                int quantity = (int) Math.min(remaining, Integer.MAX_VALUE);
+                int left = add(item, quantity, Integer.MAX_VALUE);
+                remaining -= quantity - left;
+                if (left > 0) {
+                    break;
+                }
+            }
+            for (; remaining > 0; remaining -= item.stackSize()) {
+                result.add(ItemStack.builder(item).quantity((int) Math.min(remaining, item.stackSize())).build());
+            }
+        }
+        batch.clear();
         return result;
     }
 
+    /**
+     * Tells whether {@link #addAll(Collection)} would add every given stack, without changing anything. Costs one
+     * pass over the slots.
+     */
+    public boolean canFit(Collection<ItemStack> itemStacks) {
+        ItemBatch batch = batch(itemStacks);
+        ItemRegistry registry = ItemRegistry.global();
+        int nbOfEmptySlots = 0;
+        for (int i = 0; i < nbOfSlots; i++) {
+            if (slots.isEmpty(i)) {
+                nbOfEmptySlots++;
+                continue;
+            }
+            int itemId = candidateItemId(i);
+            if (itemId != NOT_INDEXED && batch.contains(itemId)) {
+                batch.addRoom(itemId, registry.get(itemId).stackSize() - slots.quantity(i));
+            }
+        }
+        long neededEmptySlots = 0;
+        for (int position = 0; position < batch.size() && neededEmptySlots <= nbOfEmptySlots; position++) {
+            int itemId = batch.itemId(position);
+            long missing = batch.quantity(itemId) - batch.room(itemId);
+            if (missing > 0) {
+                int stackSize = registry.get(itemId).stackSize();
+                neededEmptySlots += (missing + stackSize - 1) / stackSize;
+            }
+        }
+        batch.clear();
+        return neededEmptySlots <= nbOfEmptySlots;
+    }
+
+    private static ItemBatch batch(Collection<ItemStack> itemStacks) {
+        ItemBatch batch = BATCHES.get();
+        batch.group(itemStacks);
+        return batch;
+    }
+
     public ItemStack add(int slotIndex, ItemStack itemStack) {
-        if (slotIndex < 0 || slotIndex >= nbOfSlots) {
-            throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]".formatted(slotIndex, nbOfSlots - 1));
+        checkSlotIndex(slotIndex);
+        beforeChange(slotIndex);
+        ItemStack result = slots.add(slotIndex, itemStack);
+        afterChange(slotIndex);
+        return result;
+    }
+
+    public ItemStack remove(int slotIndex) {
+        checkSlotIndex(slotIndex);
+        if (slots.isEmpty(slotIndex)) {
+            return null;
+        }
+        beforeChange(slotIndex);
+        ItemStack itemStack = slots.remove(slotIndex);
+        afterChange(slotIndex);
+        return itemStack;
+    }
+
+    /**
+     * @return the quantity of the item held, across every stack. O(1).
+     */
+    public long count(Item item) {
+        return itemIndex.total(item.id());
+    }
+
+    /**
+     * @return true if at least {@code quantity} of the item are held. O(1).
+     */
+    public boolean contains(Item item, long quantity) {
+        return count(item) >= quantity;
+    }
+
+    /**
+     * Removes {@code quantity} of the item, draining its stacks from the last slot holding it: once sorted, from the
+     * smallest stack. Only visits these slots. Emptied slots keep their lock.
+     *
+     * @return true if the quantity has been removed, false if not enough is held, in which case nothing is removed.
+     * @throws IllegalStateException if the stacks of the item have been changed behind the inventory.
+     */
+    public boolean removeQuantity(Item item, int quantity) {
+        Objects.requireNonNull(item);
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Unable to remove %d %s, at least 1 is expected".formatted(quantity, item));
+        }
+        if (!contains(item, quantity)) {
+            return false;
         }
-        Slot dst = slots.get(slotIndex);
-        if (dst.item() == null || Objects.equals(dst.item(), itemStack.item())) {
-            if (dst.itemStack() == null) {
-                dst.itemStack(ItemStack.from(itemStack));
-                return null;
+        int itemId = item.id();
+        BitSet holding = itemIndex.holding(itemId);
+        int remaining = quantity;
+        for (int i = holding.previousSetBit(nbOfSlots - 1); remaining > 0; i = holding.previousSetBit(i - 1)) {
+            if (i < 0 || slots.itemId(i) != itemId) {
+                throw new IllegalStateException(
+                        "The stacks of %s have been changed behind the inventory".formatted(item));
             }
-            if (!Objects.equals(dst.itemStack().item(), itemStack.item())) {
-                throw new IllegalStateException("Unable to add " + itemStack + " to " + dst);
+            int slotQuantity = slots.quantity(i);
+            int removed = Math.min(slotQuantity, remaining);
+            if (removed == slotQuantity) {
+                set(i, SlotStorage.NONE, 0, slots.lockedItemId(i));
+            } else {
+                set(i, itemId, slotQuantity - removed, slots.lockedItemId(i));
             }
-            return dst.itemStack().add(itemStack);
+            remaining -= removed;
         }
-        return itemStack;
+        return true;
     }
 
-    public ItemStack remove(int slotIndex) {
+    /**
+     * Changes the quantity of the stack in the slot, keeping the index up to date.
+     *
+     * @param quantity in [1, stack size of the item].
+     */
+    public void quantity(int slotIndex, int quantity) {
+        int itemId = itemId(slotIndex);
+        if (itemId == SlotStorage.NONE) {
+            throw new IllegalArgumentException("Slot '%d' holds no stack".formatted(slotIndex));
+        }
+        int stackSize = ItemRegistry.global().get(itemId).stackSize();
+        if (quantity < 1 || quantity > stackSize) {
+            throw new IllegalArgumentException("Quantity '%d' is outside [1, %d]".formatted(quantity, stackSize));
+        }
+        set(slotIndex, itemId, quantity, slots.lockedItemId(slotIndex));
+    }
+
+    /**
+     * Takes an immutable snapshot of the slots, that can be handed to other threads. Only copies the chunks of slots
+     * changed since the previous snapshot, and returns that same snapshot if nothing has changed.
+     */
+    public InventorySnapshot snapshot() {
+        if (snapshot == null || !snapshotChangedChunks.isEmpty()) {
+            snapshot = InventorySnapshot.of(slots, snapshot, snapshotChangedChunks);
+            snapshotChangedChunks.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the sequence number of the last change, 0 if none.
+     * @throws IllegalStateException if the inventory has no journal.
+     */
+    public long journalSequence() {
+        return journal().sequence();
+    }
+
+    /**
+     * Brings a copy of this inventory from the state of change {@code sequence} to the current one.
+     *
+     * @param sequence a sequence number given by {@link #journalSequence()} or {@link InventoryDeltas#sequence()}, or
+     *                 0 for an empty inventory.
+     * @return the latest state of every slot changed since, or of every slot if these changes are no longer journaled.
+     * @throws IllegalStateException if the inventory has no journal.
+     */
+    public InventoryDeltas deltasSince(long sequence) {
+        InventoryJournal journal = journal();
+        if (sequence < 0 || sequence > journal.sequence()) {
+            throw new IllegalArgumentException("Sequence '%d' is outside [0, %d]".formatted(sequence, journal.sequence()));
+        }
+        if (journal.covers(sequence)) {
+            return journal.deltasSince(sequence, nbOfSlots);
+        }
+        InventoryDeltas result = new InventoryDeltas(journal.sequence(), true, nbOfSlots);
+        for (int i = 0; i < nbOfSlots; i++) {
+            result.add(i, slots.itemId(i), slots.quantity(i), slots.lockedItemId(i));
+        }
+        return result;
+    }
+
+    private InventoryJournal journal() {
+        if (journal == null) {
+            throw new IllegalStateException("This inventory has no journal");
+        }
+        return journal;
+    }
+
+    /**
+     * @return the id of the item of the stack in the slot, or {@link SlotStorage#NONE}.
+     */
+    int itemId(int slotIndex) {
+        return slots.itemId(checkSlotIndex(slotIndex));
+    }
+
+    /**
+     * @return the quantity of the stack in the slot, 0 if there is none.
+     */
+    int quantity(int slotIndex) {
+        return slots.quantity(checkSlotIndex(slotIndex));
+    }
+
+    /**
+     * @return the id of the item the slot is locked to, or {@link SlotStorage#NONE}.
+     */
+    int lockedItemId(int slotIndex) {
+        return slots.lockedItemId(checkSlotIndex(slotIndex));
+    }
+
+    /**
+     * Overwrites a slot without going through {@link Slot}/{@link ItemStack} objects, see
+     * {@link SlotStorage#set(int, int, int, int)}.
+     */
+    void set(int slotIndex, int itemId, int quantity, int lockedItemId) {
+        checkSlotIndex(slotIndex);
+        beforeChange(slotIndex);
+        slots.set(slotIndex, itemId, quantity, lockedItemId);
+        afterChange(slotIndex);
+    }
+
+    TransactionTarget transactionTarget() {
+        return new TransactionTarget() {
+            @Override
+            public void acquire(SlotChangeListener listener) {
+                // single-threaded: nothing to lock
+                Inventory.this.listener = listener;
+            }
+
+            @Override
+            public void release() {
+                Inventory.this.listener = null;
+            }
+
+            @Override
+            public int nbOfSlots() {
+                return nbOfSlots;
+            }
+
+            @Override
+            public boolean holdsItemStack(int slotIndex) {
+                return slots.itemId(checkSlotIndex(slotIndex)) != SlotStorage.NONE;
+            }
+
+            @Override
+            public boolean canFit(List<ItemStack> itemStacks) {
+                return Inventory.this.canFit(itemStacks);
+            }
+
+            @Override
+            public ItemStack add(ItemStack itemStack) {
+                return Inventory.this.add(itemStack);
+            }
+
+            @Override
+            public ItemStack add(int slotIndex, ItemStack itemStack) {
+                return Inventory.this.add(slotIndex, itemStack);
+            }
+
+            @Override
+            public ItemStack remove(int slotIndex) {
+                return Inventory.this.remove(slotIndex);
+            }
+
+            @Override
+            public void restore(int slotIndex, int itemId, int quantity, int lockedItemId, ItemStack itemStack) {
+                markDirty(slotIndex);
+                if (itemStack == null) {
+                    slots.set(slotIndex, itemId, quantity, lockedItemId);
+                } else {
+                    Item lockedItem = lockedItemId == SlotStorage.NONE ? null : ItemRegistry.global().get(lockedItemId);
+                    slots.restore(slotIndex, lockedItem, itemStack, quantity);
+                }
+                afterChange(slotIndex);
+            }
+        };
+    }
+
+    private void beforeChange(int slotIndex) {
+        markDirty(slotIndex);
+        if (listener != null) {
+            listener.beforeChange(slotIndex, slots.itemId(slotIndex), slots.quantity(slotIndex),
+                    slots.lockedItemId(slotIndex), slots.liveItemStack(slotIndex));
+        }
+    }
+
+    private int checkSlotIndex(int slotIndex) {
         if (slotIndex < 0 || slotIndex >= nbOfSlots) {
             throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]".formatted(slotIndex, nbOfSlots - 1));
         }
-        if (slots.get(slotIndex).isEmpty()) {
-            return null;
+        return slotIndex;
+    }
+
+    /**
+     * @return the id of the item the slot can take more of, or {@link #NOT_INDEXED} if it cannot take any.
+     */
+    private int candidateItemId(int slotIndex) {
+        int itemId = slots.itemId(slotIndex);
+        if (itemId == SlotStorage.NONE) {
+            return slots.lockedItemId(slotIndex);
+        }
+        return slots.quantity(slotIndex) == ItemRegistry.global().get(itemId).stackSize() ? NOT_INDEXED : itemId;
+    }
+
+    private void afterChange(int slotIndex) {
+        reindex(slotIndex);
+        if (journal != null) {
+            journal.record(slotIndex, slots.itemId(slotIndex), slots.quantity(slotIndex), slots.lockedItemId(slotIndex));
+        }
+    }
+
+    private void markDirty(int slotIndex) {
+        dirtyFrom = Math.min(dirtyFrom, slotIndex);
+        dirtyTo = Math.max(dirtyTo, slotIndex);
+    }
+
+    private long sortKey(int slotIndex) {
+        ItemRegistry registry = ItemRegistry.global();
+        int lockedItemId = slots.lockedItemId(slotIndex);
+        int itemId = slots.itemId(slotIndex);
+        long lockedRank = lockedItemId == SlotStorage.NONE ? Integer.MAX_VALUE : registry.sortRank(lockedItemId);
+        long itemRank = itemId == SlotStorage.NONE ? Integer.MAX_VALUE : registry.sortRank(itemId);
+        return lockedRank << 32 | itemRank;
+    }
+
+    /**
+     * Same as comparing the {@link Slot slots}, without creating nor boxing anything.
+     */
+    private int compareSlots(int slotIndex1, int slotIndex2) {
+        int result = Long.compare(sortKeys[slotIndex1], sortKeys[slotIndex2]);
+        if (result != 0) {
+            return result;
+        }
+        // larger quantity first
+        return Integer.compare(slots.quantity(slotIndex2), slots.quantity(slotIndex1));
+    }
+
+    /**
+     * Sorts the slot indexes of {@code indexes[from, to[}, skipping the merge of runs already in order: a range that
+     * is almost sorted costs about one comparison per slot.
+     */
+    private void mergeSort(int[] indexes, int[] buffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int index = indexes[i];
+                int j = i - 1;
+                while (j >= from && compareSlots(indexes[j], index) > 0) {
+                    indexes[j + 1] = indexes[j];
+                    j--;
+                }
+                indexes[j + 1] = index;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(indexes, buffer, from, middle);
+        mergeSort(indexes, buffer, middle, to);
+        if (compareSlots(indexes[middle - 1], indexes[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(indexes, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || (left < middle && compareSlots(buffer[left], buffer[right]) <= 0)) {
+                indexes[i] = buffer[left++];
+            } else {
+                indexes[i] = buffer[right++];
+            }
+        }
+    }
+
+    private void reindex() {
+        sortKeysRegistrySize = ItemRegistry.global().size();
+        Arrays.fill(indexedItemIds, NOT_INDEXED);
+        Arrays.fill(heldItemIds, NOT_INDEXED);
+        Arrays.fill(heldQuantities, 0);
+        emptySlots.clear();
+        for (int i = 0; i < nbOfSlots; i++) {
+            reindex(i);
+        }
+    }
+
+    /**
+     * Every change of a slot ends with a call to this method.
+     */
+    private void reindex(int slotIndex) {
+        snapshotChangedChunks.set(slotIndex >>> InventorySnapshot.CHUNK_SHIFT);
+        int previousItemId = indexedItemIds[slotIndex];
+        if (previousItemId != NOT_INDEXED) {
+            itemIndex.removeCandidate(previousItemId, slotIndex);
+            indexedItemIds[slotIndex] = NOT_INDEXED;
+        }
+        emptySlots.set(slotIndex, slots.isEmpty(slotIndex));
+        sortKeys[slotIndex] = sortKey(slotIndex);
+        int itemId = candidateItemId(slotIndex);
+        if (itemId != NOT_INDEXED) {
+            itemIndex.addCandidate(itemId, slotIndex);
+            indexedItemIds[slotIndex] = itemId;
+        }
+        reindexHolding(slotIndex);
+    }
+
+    private void reindexHolding(int slotIndex) {
+        int previousItemId = heldItemIds[slotIndex];
+        if (previousItemId != NOT_INDEXED) {
+            itemIndex.removeHolding(previousItemId, slotIndex, heldQuantities[slotIndex]);
+            heldItemIds[slotIndex] = NOT_INDEXED;
+            heldQuantities[slotIndex] = 0;
+        }
+        int itemId = slots.itemId(slotIndex);
+        if (itemId != SlotStorage.NONE) {
+            heldItemIds[slotIndex] = itemId;
+            heldQuantities[slotIndex] = slots.quantity(slotIndex);
+            itemIndex.addHolding(itemId, slotIndex, heldQuantities[slotIndex]);
         }
-        ItemStack itemStack = slots.get(slotIndex).itemStack();
-        slots.get(slotIndex).itemStack(null);
-        return itemStack;
     }
 
     public static class Builder {
         private List<Slot> slots;
         private int nbOfSlots;
+        private Storage storage;
+        private int journalCapacity;
 
         private Builder() {
             this.slots = List.of();
             this.nbOfSlots = DEFAULT_NB_OF_SLOTS;
+            this.storage = Storage.OBJECTS;
         }
 
         Builder withSlots(List<Slot> slots) {
@@ -148,14 +796,41 @@ public class Inventory {
             return this;
         }
 
+        Builder withStorage(Storage storage) {
+            this.storage = Objects.requireNonNull(storage);
+            return this;
+        }
+
+        /**
+         * @param capacity the number of changes kept, see {@link Inventory#deltasSince(long)}. 0 for no journal.
+         */
+        Builder withJournal(int capacity) {
+            this.journalCapacity = capacity;
+            return this;
+        }
+
         public Inventory build() {
             return new Inventory(this);
         }
 
         @Override
         public String toString() {
-            return "%s{nbOfSlots=%d, slots=%s}"
-                    .formatted(getClass().getSimpleName(), nbOfSlots, slots);
+            return "%s{nbOfSlots=%d, storage=%s, journalCapacity=%d, slots=%s}"
+                    .formatted(getClass().getSimpleName(), nbOfSlots, storage, journalCapacity, slots);
         }
     }
+
+    public enum Storage {
+        /**
+         * A {@link Slot} object per slot, holding an {@link ItemStack} object. Slots and stacks returned by the
+         * inventory are the live ones.
+         */
+        OBJECTS,
+        /**
+         * Three parallel {@code int} arrays: item id, quantity and locked item id. No object is kept per slot, which
+         * suits the many inventories kept resident but rarely looked at. Slots and stacks returned by the inventory
+         * are detached views created on demand: change the inventory through its methods.
+         */
+        COMPACT,
+    }
 }
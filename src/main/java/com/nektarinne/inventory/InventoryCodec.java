@@ -0,0 +1,241 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary format for {@link Inventory}.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header   int magic, short version, int length (of the whole record, header included), int nbOfSlots, int paletteSize
+ * palette  paletteSize x (short nameLength, UTF-8 name, byte category, int stackSize)
+ * slots    nbOfSlots x (int item, int quantity, int lockedItem)   -- item references are palette indexes, -1 for none
+ * </pre>
+ * The palette holds the definition of the items used, so a record can be read in another run where
+ * {@link ItemRegistry} gave them other ids. Reading only resolves the palette against the items already built: an
+ * unknown item makes the record corrupted, so that untrusted data cannot grow the registry. Slots have a fixed size,
+ * which lets {@link EncodedInventory} decode any of them without reading the others.
+ * <p>
+ * Writing goes through the primitive state of the slots: no {@link Slot} or {@link ItemStack} is created. A codec keeps
+ * scratch arrays between calls and is therefore not thread-safe: use one per thread.
+ */
+public class InventoryCodec {
+
+    static final int MAGIC = 0x4743494E; // "GCIN"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + 3 * Integer.BYTES;
+    static final int SLOT_SIZE = 3 * Integer.BYTES;
+    /**
+     * Size of a palette entry with an empty name.
+     */
+    static final int MIN_PALETTE_ENTRY_SIZE = Short.BYTES + Byte.BYTES + Integer.BYTES;
+    private static final int NONE = SlotStorage.NONE;
+
+    /**
+     * Palette index of each item id, {@link #NONE} if not in the palette yet. Reset after each write.
+     */
+    private int[] paletteIndexes = new int[0];
+    private int[] palette = new int[0];
+    private int paletteSize;
+    /**
+     * UTF-8 names, by item id, encoded once per codec.
+     */
+    private byte[][] encodedNames = new byte[0][];
+    private ByteBuffer channelBuffer = ByteBuffer.allocate(0);
+
+    /**
+     * @return the number of bytes {@link #write(Inventory, ByteBuffer)} needs.
+     */
+    public int encodedSize(Inventory inventory) {
+        try {
+            buildPalette(inventory);
+            int size = HEADER_SIZE + inventory.nbOfSlots() * SLOT_SIZE;
+            for (int i = 0; i < paletteSize; i++) {
+                size += MIN_PALETTE_ENTRY_SIZE + encodedName(palette[i]).length;
+            }
+            return size;
+        } finally {
+            resetPalette();
+        }
+    }
+
+    /**
+     * Writes the inventory at the position of the buffer, and moves the position after it.
+     */
+    public void write(Inventory inventory, ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            buildPalette(inventory);
+            int start = buffer.position();
+            buffer.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putInt(0) // length, patched below
+                    .putInt(inventory.nbOfSlots())
+                    .putInt(paletteSize);
+            ItemRegistry registry = ItemRegistry.global();
+            for (int i = 0; i < paletteSize; i++) {
+                Item item = registry.get(palette[i]);
+                byte[] name = encodedName(item.id());
+                buffer.putShort((short) name.length)
+                        .put(name)
+                        .put((byte) item.category().ordinal())
+                        .putInt(item.stackSize());
+            }
+            for (int i = 0; i < inventory.nbOfSlots(); i++) {
+                int itemId = inventory.itemId(i);
+                int lockedItemId = inventory.lockedItemId(i);
+                buffer.putInt(itemId == NONE ? NONE : paletteIndexes[itemId])
+                        .putInt(inventory.quantity(i))
+                        .putInt(lockedItemId == NONE ? NONE : paletteIndexes[lockedItemId]);
+            }
+            buffer.putInt(start + Integer.BYTES + Short.BYTES, buffer.position() - start);
+        } finally {
+            resetPalette();
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * Writes the inventory at the current position of the channel.
+     */
+    public void write(Inventory inventory, FileChannel channel) {
+        int size = encodedSize(inventory);
+        if (channelBuffer.capacity() < size) {
+            channelBuffer = ByteBuffer.allocateDirect(Math.max(size, 2 * channelBuffer.capacity()));
+        }
+        channelBuffer.clear();
+        write(inventory, channelBuffer);
+        channelBuffer.flip();
+        try {
+            while (channelBuffer.hasRemaining()) {
+                channel.write(channelBuffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the inventory", e);
+        }
+    }
+
+    /**
+     * Reads the header and the palette of the record at the position of the buffer, and moves the position after the
+     * record. Slots are decoded on access.
+     */
+    public EncodedInventory read(ByteBuffer buffer) {
+        ByteBuffer record = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        try {
+            int magic = record.getInt();
+            if (magic != MAGIC) {
+                throw CorruptedInventoryException.create("unknown magic number %08X".formatted(magic));
+            }
+            short version = record.getShort();
+            if (version != VERSION) {
+                throw CorruptedInventoryException.create("unsupported version %d".formatted(version));
+            }
+            int length = record.getInt();
+            int nbOfSlots = record.getInt();
+            int size = record.getInt();
+            // bounded by the length before allocating the palette
+            if (length < HEADER_SIZE || length > record.capacity() || nbOfSlots < 0 || size < 0
+                    || size > (length - HEADER_SIZE) / MIN_PALETTE_ENTRY_SIZE) {
+                throw CorruptedInventoryException.create("invalid header (length=%d, nbOfSlots=%d, paletteSize=%d)"
+                        .formatted(length, nbOfSlots, size));
+            }
+            Item[] items = new Item[size];
+            Item.Category[] categories = Item.Category.values();
+            ItemRegistry registry = ItemRegistry.global();
+            for (int i = 0; i < size; i++) {
+                byte[] name = new byte[record.getShort() & 0xFFFF];
+                record.get(name);
+                int category = record.get();
+                if (category < 0 || category >= categories.length) {
+                    throw CorruptedInventoryException.create("unknown category %d".formatted(category));
+                }
+                int stackSize = record.getInt();
+                items[i] = registry.find(new String(name, StandardCharsets.UTF_8), categories[category], stackSize);
+                if (items[i] == null) {
+                    throw CorruptedInventoryException.create("unknown item '%s' (%s, stack size %d)"
+                            .formatted(new String(name, StandardCharsets.UTF_8), categories[category], stackSize));
+                }
+            }
+            if (record.position() + (long) nbOfSlots * SLOT_SIZE != length) {
+                throw CorruptedInventoryException.create("length %d does not match %d slots".formatted(length, nbOfSlots));
+            }
+            buffer.position(buffer.position() + length);
+            return new EncodedInventory(record.slice(record.position(), nbOfSlots * SLOT_SIZE), nbOfSlots, items);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw CorruptedInventoryException.create("truncated record", e);
+        }
+    }
+
+    /**
+     * Maps the record at {@code position} in the channel: slots are only read from the file when accessed.
+     */
+    public EncodedInventory read(FileChannel channel, long position) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, position + header.position()) < 0) {
+                    throw CorruptedInventoryException.create("truncated record");
+                }
+            }
+            int length = header.getInt(Integer.BYTES + Short.BYTES);
+            if (length < HEADER_SIZE) {
+                throw CorruptedInventoryException.create("invalid length %d".formatted(length));
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the inventory", e);
+        }
+    }
+
+    private void buildPalette(Inventory inventory) {
+        int registrySize = ItemRegistry.global().size();
+        if (paletteIndexes.length < registrySize) {
+            paletteIndexes = new int[registrySize];
+            Arrays.fill(paletteIndexes, NONE);
+            palette = new int[registrySize];
+        }
+        for (int i = 0; i < inventory.nbOfSlots(); i++) {
+            addToPalette(inventory.itemId(i));
+            addToPalette(inventory.lockedItemId(i));
+        }
+    }
+
+    private void addToPalette(int itemId) {
+        if (itemId != NONE && paletteIndexes[itemId] == NONE) {
+            paletteIndexes[itemId] = paletteSize;
+            palette[paletteSize++] = itemId;
+        }
+    }
+
+    private void resetPalette() {
+        for (int i = 0; i < paletteSize; i++) {
+            paletteIndexes[palette[i]] = NONE;
+        }
+        paletteSize = 0;
+    }
+
+    private byte[] encodedName(int itemId) {
+        if (encodedNames.length <= itemId) {
+            encodedNames = Arrays.copyOf(encodedNames, Math.max(itemId + 1, ItemRegistry.global().size()));
+        }
+        if (encodedNames[itemId] == null) {
+            byte[] name = ItemRegistry.global().get(itemId).name().getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new IllegalArgumentException("The name of item %d is too long to be encoded".formatted(itemId));
+            }
+            encodedNames[itemId] = name;
+        }
+        return encodedNames[itemId];
+    }
+}
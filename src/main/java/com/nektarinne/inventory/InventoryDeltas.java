@@ -0,0 +1,137 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.util.Arrays;
+
+/**
+ * A batch of slot states to bring a copy of an {@link Inventory} up to date, see {@link Inventory#deltasSince(long)}.
+ * <p>
+ * Each delta is the state of one slot: the item and quantity of its stack, and the item it is locked to, as
+ * {@link Item#id() ids} or {@link #NONE}. A slot appears at most once, so the batch costs the number of slots changed,
+ * however many times they changed. Ids are only stable within a run: map them to item definitions before sending a
+ * batch to another process.
+ */
+public final class InventoryDeltas {
+
+    /**
+     * Item id meaning "no item".
+     */
+    public static final int NONE = SlotStorage.NONE;
+    private final long sequence;
+    private final boolean full;
+    private int[] slotIndexes;
+    private int[] itemIds;
+    private int[] quantities;
+    private int[] lockedItemIds;
+    private int size;
+
+    InventoryDeltas(long sequence, boolean full, int capacity) {
+        this.sequence = sequence;
+        this.full = full;
+        this.slotIndexes = new int[capacity];
+        this.itemIds = new int[capacity];
+        this.quantities = new int[capacity];
+        this.lockedItemIds = new int[capacity];
+    }
+
+    void add(int slotIndex, int itemId, int quantity, int lockedItemId) {
+        if (size == slotIndexes.length) {
+            int capacity = Math.max(4, 2 * size);
+            slotIndexes = Arrays.copyOf(slotIndexes, capacity);
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            lockedItemIds = Arrays.copyOf(lockedItemIds, capacity);
+        }
+        slotIndexes[size] = slotIndex;
+        itemIds[size] = itemId;
+        quantities[size] = quantity;
+        lockedItemIds[size] = lockedItemId;
+        size++;
+    }
+
+    /**
+     * @return the sequence number of the last change included, to ask for the next batch.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return true if the batch holds every slot, because the changes asked for were no longer journaled.
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[.
+     */
+    public int slotIndex(int position) {
+        return slotIndexes[checkPosition(position)];
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[.
+     * @return the id of the item of the stack, or {@link #NONE}.
+     */
+    public int itemId(int position) {
+        return itemIds[checkPosition(position)];
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[.
+     * @return the quantity of the stack, 0 if there is none.
+     */
+    public int quantity(int position) {
+        return quantities[checkPosition(position)];
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[.
+     * @return the id of the item the slot is locked to, or {@link #NONE}.
+     */
+    public int lockedItemId(int position) {
+        return lockedItemIds[checkPosition(position)];
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[.
+     * @return the item of the stack, or null.
+     */
+    public Item item(int position) {
+        int itemId = itemId(position);
+        return itemId == NONE ? null : ItemRegistry.global().get(itemId);
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[.
+     * @return the item the slot is locked to, or null.
+     */
+    public Item lockedItem(int position) {
+        int lockedItemId = lockedItemId(position);
+        return lockedItemId == NONE ? null : ItemRegistry.global().get(lockedItemId);
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IllegalArgumentException("Position '%d' is outside [0, %d]".formatted(position, size - 1));
+        }
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{sequence=%d, full=%s, size=%d}"
+                .formatted(getClass().getSimpleName(), sequence, full, size);
+    }
+}
@@ -0,0 +1,79 @@
+package com.nektarinne.inventory;
+
+import java.util.BitSet;
+
+/**
+ * Ring buffer of the last changes of an {@link Inventory}: for each change, the state of the slot right after it.
+ * <p>
+ * Changes are numbered from 1, in the order they happened. Once the buffer is full, each change overwrites the oldest
+ * one: a consumer that falls behind by more than the capacity gets a full snapshot instead of deltas.
+ */
+final class InventoryJournal {
+
+    private final int[] slotIndexes;
+    private final int[] itemIds;
+    private final int[] quantities;
+    private final int[] lockedItemIds;
+    /**
+     * Sequence number of the last change, 0 if none.
+     */
+    private long sequence;
+
+    InventoryJournal(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity '%d' is invalid".formatted(capacity));
+        }
+        this.slotIndexes = new int[capacity];
+        this.itemIds = new int[capacity];
+        this.quantities = new int[capacity];
+        this.lockedItemIds = new int[capacity];
+    }
+
+    void record(int slotIndex, int itemId, int quantity, int lockedItemId) {
+        sequence++;
+        int position = position(sequence);
+        slotIndexes[position] = slotIndex;
+        itemIds[position] = itemId;
+        quantities[position] = quantity;
+        lockedItemIds[position] = lockedItemId;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return whether every change after {@code since} is still in the buffer.
+     */
+    boolean covers(long since) {
+        return sequence - since <= slotIndexes.length;
+    }
+
+    /**
+     * @return the latest state of each slot changed after {@code since}, most recently changed first.
+     */
+    InventoryDeltas deltasSince(long since, int nbOfSlots) {
+        int count = (int) (sequence - since);
+        InventoryDeltas result = new InventoryDeltas(sequence, false, Math.min(count, nbOfSlots));
+        BitSet seen = new BitSet(nbOfSlots);
+        for (long s = sequence; s > since; s--) {
+            int position = position(s);
+            int slotIndex = slotIndexes[position];
+            if (!seen.get(slotIndex)) {
+                seen.set(slotIndex);
+                result.add(slotIndex, itemIds[position], quantities[position], lockedItemIds[position]);
+            }
+        }
+        return result;
+    }
+
+    private int position(long sequence) {
+        return (int) ((sequence - 1) % slotIndexes.length);
+    }
+
+    @Override
+    public String toString() {
+        return "%s{capacity=%d, sequence=%d}"
+                .formatted(getClass().getSimpleName(), slotIndexes.length, sequence);
+    }
+}
@@ -0,0 +1,130 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.util.BitSet;
+
+/**
+ * Immutable state of an {@link Inventory}, taken by {@link Inventory#snapshot()}. Any thread can read it without
+ * locking, while the inventory keeps changing.
+ * <p>
+ * Slots are stored by chunks of {@link #CHUNK_SIZE}, each an {@code int} array holding, per slot, the id of the item of
+ * the stack, its quantity and the id of the item the slot is locked to. Successive snapshots share the chunks that have
+ * not changed in between, so taking one only copies the chunks changed since the previous one.
+ */
+public final class InventorySnapshot {
+
+    /**
+     * Item id meaning "no item".
+     */
+    public static final int NONE = SlotStorage.NONE;
+    static final int CHUNK_SHIFT = 5;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int FIELDS = 3;
+    private final int nbOfSlots;
+    private final int[][] chunks;
+
+    private InventorySnapshot(int nbOfSlots, int[][] chunks) {
+        this.nbOfSlots = nbOfSlots;
+        this.chunks = chunks;
+    }
+
+    static int nbOfChunks(int nbOfSlots) {
+        return (nbOfSlots + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+    }
+
+    /**
+     * @param previous the snapshot to share the chunks of, or null.
+     * @param changed  for each chunk, whether it has changed since {@code previous}.
+     */
+    static InventorySnapshot of(SlotStorage slots, InventorySnapshot previous, BitSet changed) {
+        int nbOfSlots = slots.size();
+        int[][] chunks = previous == null ? new int[nbOfChunks(nbOfSlots)][] : previous.chunks.clone();
+        for (int c = changed.nextSetBit(0); c >= 0 && c < chunks.length; c = changed.nextSetBit(c + 1)) {
+            int from = c << CHUNK_SHIFT;
+            int to = Math.min(nbOfSlots, from + CHUNK_SIZE);
+            int[] chunk = new int[FIELDS * (to - from)];
+            for (int i = from; i < to; i++) {
+                int offset = FIELDS * (i - from);
+                chunk[offset] = slots.itemId(i);
+                chunk[offset + 1] = slots.quantity(i);
+                chunk[offset + 2] = slots.lockedItemId(i);
+            }
+            chunks[c] = chunk;
+        }
+        return new InventorySnapshot(nbOfSlots, chunks);
+    }
+
+    public int nbOfSlots() {
+        return nbOfSlots;
+    }
+
+    /**
+     * @return the id of the item of the stack in the slot, or {@link #NONE}.
+     */
+    public int itemId(int slotIndex) {
+        return field(slotIndex, 0);
+    }
+
+    /**
+     * @return the quantity of the stack in the slot, 0 if there is none.
+     */
+    public int quantity(int slotIndex) {
+        return field(slotIndex, 1);
+    }
+
+    /**
+     * @return the id of the item the slot is locked to, or {@link #NONE}.
+     */
+    public int lockedItemId(int slotIndex) {
+        return field(slotIndex, 2);
+    }
+
+    public boolean isEmpty(int slotIndex) {
+        return itemId(slotIndex) == NONE && lockedItemId(slotIndex) == NONE;
+    }
+
+    /**
+     * @return the item the slot is locked to, or null.
+     */
+    public Item getItem(int slotIndex) {
+        int lockedItemId = lockedItemId(slotIndex);
+        return lockedItemId == NONE ? null : ItemRegistry.global().get(lockedItemId);
+    }
+
+    /**
+     * @return a new stack, or null.
+     */
+    public ItemStack getItemStack(int slotIndex) {
+        int itemId = itemId(slotIndex);
+        return itemId == NONE ? null : ItemStack.builder(ItemRegistry.global().get(itemId)).quantity(quantity(slotIndex)).build();
+    }
+
+    /**
+     * @return a new slot.
+     */
+    public Slot getSlot(int slotIndex) {
+        return Slot.builder()
+                .item(getItem(slotIndex))
+                .itemStack(getItemStack(slotIndex))
+                .build();
+    }
+
+    int[] chunk(int chunkIndex) {
+        return chunks[chunkIndex];
+    }
+
+    private int field(int slotIndex, int field) {
+        if (slotIndex < 0 || slotIndex >= nbOfSlots) {
+            throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]".formatted(slotIndex, nbOfSlots - 1));
+        }
+        return chunks[slotIndex >>> CHUNK_SHIFT][FIELDS * (slotIndex & (CHUNK_SIZE - 1)) + field];
+    }
+
+    @Override
+    public String toString() {
+        return "%s{nbOfSlots=%d, chunks=%d}"
+                .formatted(getClass().getSimpleName(), nbOfSlots, chunks.length);
+    }
+}
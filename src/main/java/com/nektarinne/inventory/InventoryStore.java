@@ -0,0 +1,694 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Stores the inventories of many players in a memory-mapped file, and reads or changes them in place: no
+ * {@link Inventory}, {@link Slot} or {@link ItemStack} is built unless asked for.
+ * <p>
+ * The store is a directory of two files. {@code items.dat} is an append-only palette of item definitions, in the format
+ * of the {@link InventoryCodec} palette: records refer to items by palette index, so that they can be read in another
+ * run where {@link ItemRegistry} gave the items other ids. {@code inventories.dat} is a header followed by records,
+ * big-endian:
+ * <pre>
+ * header  int magic, short version, short 0, int segmentSize, int 0
+ * record  int state, long playerId, int nbOfSlots, nbOfSlots x (int item, int quantity), nbOfSlots x int lockedItem,
+ *         padding to a multiple of 8 bytes
+ * </pre>
+ * The file is mapped by segments of {@code segmentSize} bytes, a multiple of 8, which no record crosses. A record is
+ * appended with a free state and made live by writing its state last, once the rest is on disk: a crash leaves at worst
+ * an unfinished record, ignored on opening. Storing an inventory again appends a new record and marks the previous one
+ * as dead, so the slot count can change; {@link #compact()} rewrites the file without the dead records. Single-slot
+ * changes are written in place: the item and the quantity of a stack are 8-byte aligned and written by a single store,
+ * so a crash never leaves a slot with the item of one stack and the quantity of another.
+ * <p>
+ * Thread-safe: reads share a lock, changes take it exclusively.
+ */
+public final class InventoryStore implements AutoCloseable {
+
+    static final int MAGIC = 0x47434953; // "GCIS"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    static final int STACK_SIZE = 2 * Integer.BYTES;
+    static final int ALIGNMENT = Long.BYTES;
+    static final int FREE = 0;
+    static final int LIVE = 0x4C495645; // "LIVE"
+    static final int DEAD = 0x44454144; // "DEAD"
+    static final String RECORDS_FILE = "inventories.dat";
+    static final String ITEMS_FILE = "items.dat";
+    private static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    private static final int NONE = SlotStorage.NONE;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FileChannel itemsChannel;
+    private final List<Item> palette = new ArrayList<>();
+    /**
+     * Palette index of each item id, {@link #NONE} if not in the palette.
+     */
+    private int[] paletteIndexes = new int[0];
+    private FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    /**
+     * Position of the live record of each player.
+     */
+    private RecordIndex index = new RecordIndex();
+    /**
+     * Position after the last record.
+     */
+    private long end;
+    private long deadBytes;
+
+    private InventoryStore(Builder builder) {
+        this.directory = Objects.requireNonNull(builder.directory);
+        if (builder.segmentSize < HEADER_SIZE + RECORD_HEADER_SIZE || builder.segmentSize % ALIGNMENT != 0) {
+            throw new IllegalArgumentException("segmentSize '%d' is invalid".formatted(builder.segmentSize));
+        }
+        FileChannel items = null;
+        try {
+            Files.createDirectories(directory);
+            // left by an interrupted compaction
+            Files.deleteIfExists(directory.resolve(RECORDS_FILE + ".tmp"));
+            items = FileChannel.open(directory.resolve(ITEMS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.itemsChannel = items;
+            readPalette();
+            this.channel = FileChannel.open(directory.resolve(RECORDS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                writeFully(channel, header(builder.segmentSize), 0);
+                channel.force(true);
+            }
+            this.segmentSize = readSegmentSize(channel);
+            map(channel, segments, channel.size());
+            scan();
+        } catch (IOException e) {
+            closeQuietly(items);
+            closeQuietly(channel);
+            throw new UncheckedIOException("Unable to open the inventory store %s".formatted(directory), e);
+        } catch (RuntimeException e) {
+            closeQuietly(items);
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of players with a stored inventory.
+     */
+    public int size() {
+        return read(() -> index.size());
+    }
+
+    /**
+     * @return the number of bytes taken by dead records, that {@link #compact()} would free.
+     */
+    public long deadBytes() {
+        return read(() -> deadBytes);
+    }
+
+    public boolean contains(long playerId) {
+        return read(() -> index.get(playerId) != RecordIndex.ABSENT);
+    }
+
+    public int nbOfSlots(long playerId) {
+        return read(() -> {
+            long position = record(playerId);
+            return nbOfSlots(segment(position), offset(position));
+        });
+    }
+
+    /**
+     * @return a new stack, or null.
+     */
+    public ItemStack getItemStack(long playerId, int slotIndex) {
+        return read(() -> {
+            long position = slotRecord(playerId, slotIndex);
+            ByteBuffer segment = segment(position);
+            long stack = segment.getLong(offset(position) + stackOffset(slotIndex));
+            Item item = paletteItem((int) (stack >>> 32));
+            return item == null ? null : ItemStack.builder(item).quantity((int) stack).build();
+        });
+    }
+
+    /**
+     * @return the item the slot is locked to, or null.
+     */
+    public Item getItem(long playerId, int slotIndex) {
+        return read(() -> {
+            long position = slotRecord(playerId, slotIndex);
+            ByteBuffer segment = segment(position);
+            int offset = offset(position);
+            return paletteItem(segment.getInt(offset + lockOffset(nbOfSlots(segment, offset), slotIndex)));
+        });
+    }
+
+    /**
+     * @return the quantity of the item held by the player, across every stack.
+     */
+    public long count(long playerId, Item item) {
+        Objects.requireNonNull(item);
+        return read(() -> {
+            int paletteIndex = item.id() < paletteIndexes.length ? paletteIndexes[item.id()] : NONE;
+            if (paletteIndex == NONE) {
+                record(playerId);
+                return 0L;
+            }
+            long position = record(playerId);
+            ByteBuffer segment = segment(position);
+            int offset = offset(position);
+            int nbOfSlots = nbOfSlots(segment, offset);
+            long result = 0;
+            for (int i = 0, slot = offset + stackOffset(0); i < nbOfSlots; i++, slot += STACK_SIZE) {
+                if (segment.getInt(slot) == paletteIndex) {
+                    result += segment.getInt(slot + Integer.BYTES);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return a new inventory holding the stored one, or null if there is none.
+     */
+    public Inventory get(long playerId, Inventory.Storage storage) {
+        Objects.requireNonNull(storage);
+        return read(() -> {
+            long position = index.get(playerId);
+            if (position == RecordIndex.ABSENT) {
+                return null;
+            }
+            ByteBuffer segment = segment(position);
+            int offset = offset(position);
+            int nbOfSlots = nbOfSlots(segment, offset);
+            Inventory result = Inventory.builder().withNbOfSlots(nbOfSlots).withStorage(storage).build();
+            for (int i = 0, slot = offset + stackOffset(0), lock = offset + lockOffset(nbOfSlots, 0); i < nbOfSlots;
+                 i++, slot += STACK_SIZE, lock += Integer.BYTES) {
+                Item item = paletteItem(segment.getInt(slot));
+                Item lockedItem = paletteItem(segment.getInt(lock));
+                if (item != null || lockedItem != null) {
+                    result.set(i, item == null ? NONE : item.id(), segment.getInt(slot + Integer.BYTES),
+                            lockedItem == null ? NONE : lockedItem.id());
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Stores the inventory of the player, replacing the previous one if any. Crash-safe: after a crash, the store
+     * holds either the previous inventory or this one.
+     */
+    public void put(long playerId, Inventory inventory) {
+        Objects.requireNonNull(inventory);
+        int nbOfSlots = inventory.nbOfSlots();
+        int size = recordSize(nbOfSlots);
+        if (size > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("An inventory of %d slots does not fit in segments of %d bytes"
+                    .formatted(nbOfSlots, segmentSize));
+        }
+        write(() -> {
+            long position = end;
+            if (offset(position) + size > segmentSize) {
+                position = (position / segmentSize + 1) * segmentSize;
+            }
+            ensureMapped(position + size);
+            MappedByteBuffer segment = segment(position);
+            int offset = offset(position);
+            segment.putLong(offset + Integer.BYTES, playerId)
+                    .putInt(offset + Integer.BYTES + Long.BYTES, nbOfSlots);
+            for (int i = 0, slot = offset + stackOffset(0), lock = offset + lockOffset(nbOfSlots, 0); i < nbOfSlots;
+                 i++, slot += STACK_SIZE, lock += Integer.BYTES) {
+                segment.putLong(slot, stack(paletteIndex(inventory.itemId(i)), inventory.quantity(i)))
+                        .putInt(lock, paletteIndex(inventory.lockedItemId(i)));
+            }
+            if (offset + size + Integer.BYTES <= segmentSize) {
+                // ends the scan on opening, in case of leftovers of an unfinished record
+                segment.putInt(offset + size, FREE);
+            }
+            segment.force(offset, Math.min(size + Integer.BYTES, segmentSize - offset));
+            segment.putInt(offset, LIVE);
+            segment.force(offset, Integer.BYTES);
+            end = position + size;
+            long previous = index.put(playerId, position);
+            if (previous != RecordIndex.ABSENT) {
+                kill(previous);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Changes the stack of a slot in place, keeping its lock.
+     *
+     * @param itemStack the new stack, or null to empty the slot.
+     */
+    public void setItemStack(long playerId, int slotIndex, ItemStack itemStack) {
+        write(() -> {
+            long position = slotRecord(playerId, slotIndex);
+            MappedByteBuffer segment = segment(position);
+            int offset = offset(position) + stackOffset(slotIndex);
+            // aligned: a single store
+            segment.putLong(offset, itemStack == null ? stack(NONE, 0)
+                    : stack(paletteIndex(itemStack.item().id()), itemStack.quantity()));
+            segment.force(offset, STACK_SIZE);
+            return null;
+        });
+    }
+
+    /**
+     * @return true if the player had a stored inventory.
+     */
+    public boolean remove(long playerId) {
+        return write(() -> {
+            long position = index.remove(playerId);
+            if (position == RecordIndex.ABSENT) {
+                return false;
+            }
+            kill(position);
+            return true;
+        });
+    }
+
+    /**
+     * Rewrites the file without the dead records, then replaces it atomically. A crash during the compaction leaves
+     * the previous file; a failure leaves the store as it was.
+     */
+    public void compact() {
+        write(() -> {
+            Path records = directory.resolve(RECORDS_FILE);
+            Path temp = directory.resolve(RECORDS_FILE + ".tmp");
+            RecordIndex compacted = new RecordIndex();
+            List<MappedByteBuffer> compactedSegments = new ArrayList<>();
+            long position = HEADER_SIZE;
+            FileChannel target = null;
+            try {
+                target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                writeFully(target, header(segmentSize), 0);
+                for (int bucket = 0; bucket < index.capacity(); bucket++) {
+                    long source = index.valueAt(bucket);
+                    if (source == RecordIndex.ABSENT) {
+                        continue;
+                    }
+                    ByteBuffer segment = segment(source);
+                    int offset = offset(source);
+                    int size = recordSize(nbOfSlots(segment, offset));
+                    if (position % segmentSize + size > segmentSize) {
+                        position = (position / segmentSize + 1) * segmentSize;
+                    }
+                    writeFully(target, segment.duplicate().position(offset).limit(offset + size), position);
+                    compacted.put(index.keyAt(bucket), position);
+                    position += size;
+                }
+                target.force(true);
+                // mapped before the move, which keeps the current file and its mapping in use until it succeeds
+                map(target, compactedSegments, Math.max(position, target.size()));
+                try {
+                    Files.move(temp, records, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, records, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                closeQuietly(target);
+                deleteQuietly(temp);
+                throw new UncheckedIOException("Unable to compact the inventory store %s".formatted(directory), e);
+            }
+            closeQuietly(channel);
+            channel = target;
+            segments.clear();
+            segments.addAll(compactedSegments);
+            index = compacted;
+            end = position;
+            deadBytes = 0;
+            return null;
+        });
+    }
+
+    /**
+     * Closes the files. The mapped memory is released once garbage collected.
+     */
+    @Override
+    public void close() {
+        write(() -> {
+            try {
+                itemsChannel.close();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to close the inventory store %s".formatted(directory), e);
+            }
+            segments.clear();
+            return null;
+        });
+    }
+
+    private static ByteBuffer header(int segmentSize) {
+        return ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) 0)
+                .putInt(segmentSize)
+                .putInt(0)
+                .flip();
+    }
+
+    static int recordSize(int nbOfSlots) {
+        int size = RECORD_HEADER_SIZE + nbOfSlots * (STACK_SIZE + Integer.BYTES);
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * @return the offset of the stack of the slot in its record.
+     */
+    static int stackOffset(int slotIndex) {
+        return RECORD_HEADER_SIZE + slotIndex * STACK_SIZE;
+    }
+
+    /**
+     * @return the offset of the locked item of the slot in its record.
+     */
+    static int lockOffset(int nbOfSlots, int slotIndex) {
+        return RECORD_HEADER_SIZE + nbOfSlots * STACK_SIZE + slotIndex * Integer.BYTES;
+    }
+
+    /**
+     * @return the item and the quantity of a stack, in the order two big-endian ints would be written.
+     */
+    private static long stack(int item, int quantity) {
+        return (long) item << 32 | quantity & 0xFFFFFFFFL;
+    }
+
+    private static int nbOfSlots(ByteBuffer segment, int offset) {
+        return segment.getInt(offset + Integer.BYTES + Long.BYTES);
+    }
+
+    private void scan() {
+        long size = (long) segments.size() * segmentSize;
+        long position = HEADER_SIZE;
+        end = HEADER_SIZE;
+        while (position < size) {
+            ByteBuffer segment = segment(position);
+            int offset = offset(position);
+            int state = offset + RECORD_HEADER_SIZE > segmentSize ? FREE : segment.getInt(offset);
+            if (state == FREE) {
+                // the rest of the segment is unused
+                position = (position / segmentSize + 1) * segmentSize;
+                continue;
+            }
+            if (state != LIVE && state != DEAD) {
+                throw CorruptedInventoryException.create("unknown record state %08X at %d".formatted(state, position));
+            }
+            long playerId = segment.getLong(offset + Integer.BYTES);
+            int nbOfSlots = nbOfSlots(segment, offset);
+            if (nbOfSlots < 0 || offset + (long) recordSize(nbOfSlots) > segmentSize) {
+                throw CorruptedInventoryException.create("invalid record of %d slots at %d".formatted(nbOfSlots, position));
+            }
+            if (state == LIVE) {
+                long previous = index.put(playerId, position);
+                if (previous != RecordIndex.ABSENT) {
+                    // crashed between appending this record and killing the previous one
+                    kill(previous);
+                }
+            } else {
+                deadBytes += recordSize(nbOfSlots);
+            }
+            position += recordSize(nbOfSlots);
+            end = position;
+        }
+    }
+
+    private void kill(long position) {
+        MappedByteBuffer segment = segment(position);
+        int offset = offset(position);
+        segment.putInt(offset, DEAD);
+        segment.force(offset, Integer.BYTES);
+        deadBytes += recordSize(nbOfSlots(segment, offset));
+    }
+
+    private long record(long playerId) {
+        long position = index.get(playerId);
+        if (position == RecordIndex.ABSENT) {
+            throw new IllegalArgumentException("No inventory is stored for player '%d'".formatted(playerId));
+        }
+        return position;
+    }
+
+    /**
+     * @return the position of the live record of the player, after checking it has the slot. A record does not cross
+     * segments.
+     */
+    private long slotRecord(long playerId, int slotIndex) {
+        long position = record(playerId);
+        int nbOfSlots = nbOfSlots(segment(position), offset(position));
+        if (slotIndex < 0 || slotIndex >= nbOfSlots) {
+            throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]".formatted(slotIndex, nbOfSlots - 1));
+        }
+        return position;
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments.get((int) (position / segmentSize));
+    }
+
+    private int offset(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    /**
+     * Maps the segments of the file up to {@code size}, growing the file if needed.
+     */
+    private void map(FileChannel channel, List<MappedByteBuffer> segments, long size) throws IOException {
+        while ((long) segments.size() * segmentSize < size) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+        }
+    }
+
+    /**
+     * Maps the segments up to {@code position}, growing the file.
+     */
+    private void ensureMapped(long position) {
+        try {
+            map(channel, segments, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to grow the inventory store %s".formatted(directory), e);
+        }
+    }
+
+    private static int readSegmentSize(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // read fully
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE) {
+            throw CorruptedInventoryException.create("truncated header");
+        }
+        int magic = header.getInt();
+        if (magic != MAGIC) {
+            throw CorruptedInventoryException.create("unknown magic number %08X".formatted(magic));
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw CorruptedInventoryException.create("unsupported version %d".formatted(version));
+        }
+        header.getShort();
+        int segmentSize = header.getInt();
+        if (segmentSize < HEADER_SIZE + RECORD_HEADER_SIZE || segmentSize % ALIGNMENT != 0) {
+            throw CorruptedInventoryException.create("invalid segment size %d".formatted(segmentSize));
+        }
+        return segmentSize;
+    }
+
+    private void readPalette() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) itemsChannel.size());
+        while (buffer.hasRemaining() && itemsChannel.read(buffer, buffer.position()) >= 0) {
+            // read fully
+        }
+        buffer.flip();
+        Item.Category[] categories = Item.Category.values();
+        int valid = 0;
+        while (buffer.remaining() >= Short.BYTES) {
+            int nameLength = buffer.getShort() & 0xFFFF;
+            if (buffer.remaining() < nameLength + Byte.BYTES + Integer.BYTES) {
+                break;
+            }
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            int category = buffer.get();
+            if (category < 0 || category >= categories.length) {
+                throw CorruptedInventoryException.create("unknown item category %d".formatted(category));
+            }
+            Item item = Item.builder()
+                    .name(new String(name, StandardCharsets.UTF_8))
+                    .category(categories[category])
+                    .stackSize(buffer.getInt())
+                    .build();
+            register(item);
+            valid = buffer.position();
+        }
+        // drop an entry left unfinished by a crash
+        itemsChannel.truncate(valid);
+        itemsChannel.position(valid);
+    }
+
+    /**
+     * @return the palette index of the item id, appending the item to the palette if needed.
+     */
+    private int paletteIndex(int itemId) {
+        if (itemId == NONE) {
+            return NONE;
+        }
+        if (itemId < paletteIndexes.length && paletteIndexes[itemId] != NONE) {
+            return paletteIndexes[itemId];
+        }
+        Item item = ItemRegistry.global().get(itemId);
+        byte[] name = item.name().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(Short.BYTES + name.length + Byte.BYTES + Integer.BYTES)
+                .putShort((short) name.length)
+                .put(name)
+                .put((byte) item.category().ordinal())
+                .putInt(item.stackSize())
+                .flip();
+        try {
+            while (entry.hasRemaining()) {
+                itemsChannel.write(entry);
+            }
+            // before any record refers to it
+            itemsChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to add %s to the inventory store %s".formatted(item, directory), e);
+        }
+        return register(item);
+    }
+
+    private int register(Item item) {
+        if (item.id() >= paletteIndexes.length) {
+            int length = paletteIndexes.length;
+            paletteIndexes = Arrays.copyOf(paletteIndexes, Math.max(item.id() + 1, ItemRegistry.global().size()));
+            Arrays.fill(paletteIndexes, length, paletteIndexes.length, NONE);
+        }
+        if (paletteIndexes[item.id()] == NONE) {
+            paletteIndexes[item.id()] = palette.size();
+        }
+        palette.add(item);
+        return palette.size() - 1;
+    }
+
+    private Item paletteItem(int paletteIndex) {
+        if (paletteIndex == NONE) {
+            return null;
+        }
+        if (paletteIndex < 0 || paletteIndex >= palette.size()) {
+            throw CorruptedInventoryException.create("unknown palette index %d".formatted(paletteIndex));
+        }
+        return palette.get(paletteIndex);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // already failing
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already failing
+            }
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        return locked(lock.readLock(), action);
+    }
+
+    private <T> T write(Supplier<T> action) {
+        return locked(lock.writeLock(), action);
+    }
+
+    private static <T> T locked(Lock lock, Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{directory=%s, segmentSize=%d, size=%d, end=%d, deadBytes=%d}"
+                .formatted(getClass().getSimpleName(), directory, segmentSize, index.size(), end, deadBytes);
+    }
+
+    public static class Builder {
+        private Path directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+        private Builder() {
+        }
+
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Only used when creating a store: the size of the segments the file is mapped by, which bounds the size of an
+         * inventory. 64 MiB by default.
+         */
+        public Builder segmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Opens the store, creating it if needed.
+         */
+        public InventoryStore build() {
+            return new InventoryStore(this);
+        }
+
+        @Override
+        public String toString() {
+            return "%s{directory=%s, segmentSize=%d}"
+                    .formatted(getClass().getSimpleName(), directory, segmentSize);
+        }
+    }
+}
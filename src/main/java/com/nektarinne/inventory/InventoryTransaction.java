@@ -0,0 +1,237 @@
+package com.nektarinne.inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Stages operations against one or more inventories, and applies them all or none of them.
+ * <p>
+ * On {@link #commit()}, the operations are validated in a single pass, which also checks, per inventory, that the
+ * added stacks can fit and that the removed slots can hold a stack: most transactions bound to fail do so there,
+ * without locking nor changing anything. Then every inventory is acquired once (all the stripe locks of a
+ * {@link ConcurrentInventory}, in a global order), and the operations are applied in the order they were staged. If
+ * one of them still fails, the slots changed so far are put back from an undo log recording, per changed slot, its
+ * previous primitive state and the stack instance it was holding: no slot or stack is built or deep-copied.
+ * <p>
+ * An operation fails when an added stack does not entirely fit, or when a removed slot holds no stack. A transaction
+ * can only be committed once.
+ */
+public class InventoryTransaction {
+
+    private final Map<Object, TransactionTarget> targets = new IdentityHashMap<>();
+    private final List<Operation> operations = new ArrayList<>();
+    private final List<Undo> undoLog = new ArrayList<>();
+    private final List<ItemStack> removed = new ArrayList<>();
+    private boolean committed;
+
+    private InventoryTransaction() {
+    }
+
+    public static InventoryTransaction create() {
+        return new InventoryTransaction();
+    }
+
+    public InventoryTransaction add(Inventory inventory, ItemStack itemStack) {
+        return stage(Kind.ADD, target(inventory), -1, itemStack);
+    }
+
+    public InventoryTransaction add(Inventory inventory, int slotIndex, ItemStack itemStack) {
+        return stage(Kind.ADD_TO_SLOT, target(inventory), slotIndex, itemStack);
+    }
+
+    public InventoryTransaction remove(Inventory inventory, int slotIndex) {
+        return stage(Kind.REMOVE, target(inventory), slotIndex, null);
+    }
+
+    public InventoryTransaction add(ConcurrentInventory inventory, ItemStack itemStack) {
+        return stage(Kind.ADD, target(inventory), -1, itemStack);
+    }
+
+    public InventoryTransaction add(ConcurrentInventory inventory, int slotIndex, ItemStack itemStack) {
+        return stage(Kind.ADD_TO_SLOT, target(inventory), slotIndex, itemStack);
+    }
+
+    public InventoryTransaction remove(ConcurrentInventory inventory, int slotIndex) {
+        return stage(Kind.REMOVE, target(inventory), slotIndex, null);
+    }
+
+    /**
+     * @return true if every operation has been applied, false if none has.
+     */
+    public boolean commit() {
+        if (committed) {
+            throw new IllegalStateException("This transaction has already been committed");
+        }
+        committed = true;
+        if (!validate()) {
+            return false;
+        }
+        List<TransactionTarget> lockOrder = new ArrayList<>(targets.values());
+        lockOrder.sort(Comparator.comparingLong(TransactionTarget::lockOrder));
+        int acquired = 0;
+        try {
+            for (TransactionTarget target : lockOrder) {
+                target.acquire((slotIndex, itemId, quantity, lockedItemId, itemStack) ->
+                        undoLog.add(new Undo(target, slotIndex, itemId, quantity, lockedItemId, itemStack)));
+                acquired++;
+            }
+            for (Operation operation : operations) {
+                if (!apply(operation)) {
+                    rollback();
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                lockOrder.get(i).release();
+            }
+            undoLog.clear();
+        }
+    }
+
+    /**
+     * @return the stacks removed by a successful commit, in the order of the remove operations.
+     */
+    public List<ItemStack> removed() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    private TransactionTarget target(Inventory inventory) {
+        Objects.requireNonNull(inventory);
+        return targets.computeIfAbsent(inventory, k -> inventory.transactionTarget());
+    }
+
+    private TransactionTarget target(ConcurrentInventory inventory) {
+        Objects.requireNonNull(inventory);
+        return targets.computeIfAbsent(inventory, k -> inventory.transactionTarget());
+    }
+
+    private InventoryTransaction stage(Kind kind, TransactionTarget target, int slotIndex, ItemStack itemStack) {
+        if (committed) {
+            throw new IllegalStateException("This transaction has already been committed");
+        }
+        operations.add(new Operation(kind, target, slotIndex, itemStack));
+        return this;
+    }
+
+    /**
+     * Checks the arguments of every operation, then whether the operations can succeed, from the current state of the
+     * targets: a removed slot must hold a stack, unless an earlier operation may have filled it, and the stacks added
+     * to a target nothing is removed from must fit in it.
+     *
+     * @return false if an operation is sure to fail.
+     * @throws IllegalArgumentException if an operation is invalid.
+     */
+    private boolean validate() {
+        for (Operation operation : operations) {
+            if (operation.kind != Kind.ADD
+                    && (operation.slotIndex < 0 || operation.slotIndex >= operation.target.nbOfSlots())) {
+                throw new IllegalArgumentException("SlotIndex '%d' is outside [0, %d]"
+                        .formatted(operation.slotIndex, operation.target.nbOfSlots() - 1));
+            }
+            if (operation.kind != Kind.REMOVE) {
+                Objects.requireNonNull(operation.itemStack);
+                if (operation.itemStack.quantity() == 0) {
+                    throw EmptyItemStackException.create(operation.itemStack);
+                }
+            }
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            if (operation.kind == Kind.REMOVE && !mayHoldItemStack(i)) {
+                return false;
+            }
+        }
+        for (TransactionTarget target : targets.values()) {
+            List<ItemStack> added = new ArrayList<>();
+            boolean removes = false;
+            for (Operation operation : operations) {
+                if (operation.target == target) {
+                    removes |= operation.kind == Kind.REMOVE;
+                    if (operation.kind != Kind.REMOVE) {
+                        added.add(operation.itemStack);
+                    }
+                }
+            }
+            // a removal frees room: only the fallback can tell
+            if (!removes && !added.isEmpty() && !target.canFit(added)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the slot removed by the operation is sure to hold no stack by then.
+     */
+    private boolean mayHoldItemStack(int removal) {
+        Operation operation = operations.get(removal);
+        for (int i = removal - 1; i >= 0; i--) {
+            Operation previous = operations.get(i);
+            if (previous.target != operation.target) {
+                continue;
+            }
+            if (previous.kind == Kind.ADD) {
+                return true;
+            }
+            if (previous.slotIndex == operation.slotIndex) {
+                return previous.kind == Kind.ADD_TO_SLOT;
+            }
+        }
+        return operation.target.holdsItemStack(operation.slotIndex);
+    }
+
+    private boolean apply(Operation operation) {
+        return switch (operation.kind) {
+            case ADD -> operation.target.add(operation.itemStack) == null;
+            case ADD_TO_SLOT -> operation.target.add(operation.slotIndex, operation.itemStack) == null;
+            case REMOVE -> {
+                ItemStack itemStack = operation.target.remove(operation.slotIndex);
+                if (itemStack != null) {
+                    removed.add(itemStack);
+                }
+                yield itemStack != null;
+            }
+        };
+    }
+
+    private void rollback() {
+        for (int i = undoLog.size() - 1; i >= 0; i--) {
+            Undo undo = undoLog.get(i);
+            undo.target.restore(undo.slotIndex, undo.itemId, undo.quantity, undo.lockedItemId, undo.itemStack);
+        }
+        undoLog.clear();
+        removed.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "%s{operations=%d, committed=%s}"
+                .formatted(getClass().getSimpleName(), operations.size(), committed);
+    }
+
+    private enum Kind {
+        ADD,
+        ADD_TO_SLOT,
+        REMOVE,
+    }
+
+    private record Operation(Kind kind, TransactionTarget target, int slotIndex, ItemStack itemStack) {
+    }
+
+    /**
+     * The state of a slot before a change, see {@link SlotChangeListener}.
+     */
+    private record Undo(TransactionTarget target, int slotIndex, int itemId, int quantity, int lockedItemId,
+                        ItemStack itemStack) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.nektarinne.inventory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Stacks to add at once, grouped by item: the total quantity of each item, in primitive arrays indexed by
+ * {@link com.nektarinne.common.Item#id()}, with the list of the ids present. Same layout as
+ * {@link com.nektarinne.droptables.DropAccumulator}: reused, it allocates nothing and clearing it only costs the number
+ * of distinct items. The arrays only grow to the highest item id grouped so far.
+ */
+final class ItemBatch {
+
+    private long[] quantities = new long[0];
+    /**
+     * Room found for each item, see {@link Inventory#canFit(Collection)}.
+     */
+    private long[] rooms = new long[0];
+    private int[] itemIds = new int[0];
+    private int size;
+
+    /**
+     * Replaces the content of the batch. Validates every stack before grouping any.
+     */
+    void group(Collection<ItemStack> itemStacks) {
+        Objects.requireNonNull(itemStacks);
+        int maxItemId = -1;
+        for (ItemStack itemStack : itemStacks) {
+            Objects.requireNonNull(itemStack);
+            if (itemStack.quantity() == 0) {
+                throw EmptyItemStackException.create(itemStack);
+            }
+            maxItemId = Math.max(maxItemId, itemStack.item().id());
+        }
+        clear();
+        ensureCapacity(maxItemId + 1);
+        for (ItemStack itemStack : itemStacks) {
+            int itemId = itemStack.item().id();
+            if (quantities[itemId] == 0) {
+                itemIds[size++] = itemId;
+            }
+            quantities[itemId] += itemStack.quantity();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param position in [0, {@link #size()}[, in the order the items first appear.
+     */
+    int itemId(int position) {
+        return itemIds[position];
+    }
+
+    long quantity(int itemId) {
+        return itemId < quantities.length ? quantities[itemId] : 0;
+    }
+
+    boolean contains(int itemId) {
+        return quantity(itemId) > 0;
+    }
+
+    void addRoom(int itemId, long room) {
+        rooms[itemId] += room;
+    }
+
+    long room(int itemId) {
+        return rooms[itemId];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            quantities[itemIds[i]] = 0;
+            rooms[itemIds[i]] = 0;
+        }
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > quantities.length) {
+            quantities = Arrays.copyOf(quantities, capacity);
+            rooms = Arrays.copyOf(rooms, capacity);
+            itemIds = Arrays.copyOf(itemIds, capacity);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{size=%d, capacity=%d}"
+                .formatted(getClass().getSimpleName(), size, quantities.length);
+    }
+}
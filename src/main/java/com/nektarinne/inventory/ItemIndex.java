@@ -0,0 +1,205 @@
+package com.nektarinne.inventory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Per-item index of an {@link Inventory}: for each item it deals with, the slots able to take more of it (candidates),
+ * the slots holding it and the total quantity held.
+ * <p>
+ * Only the items indexed have an entry, found through a small open-addressing table keyed by item id (linear probing,
+ * backward-shift deletion): the index grows with the number of distinct items in the inventory, not with the number of
+ * items in the game. An entry is removed once no slot is indexed under its item anymore.
+ */
+final class ItemIndex {
+
+    private static final int PHI = 0x9E3779B9;
+    private static final int INITIAL_BUCKETS = 8;
+    private static final int EMPTY = 0;
+    private final int nbOfSlots;
+    /**
+     * Position + 1 of the entry of each bucket, {@link #EMPTY} for an empty bucket.
+     */
+    private int[] buckets;
+    private int shift;
+    private int[] itemIds;
+    private BitSet[] candidates;
+    private BitSet[] holding;
+    private long[] totals;
+    private int size;
+
+    ItemIndex(int nbOfSlots) {
+        this.nbOfSlots = nbOfSlots;
+        allocate(INITIAL_BUCKETS);
+        this.itemIds = new int[INITIAL_BUCKETS / 2];
+        this.candidates = new BitSet[INITIAL_BUCKETS / 2];
+        this.holding = new BitSet[INITIAL_BUCKETS / 2];
+        this.totals = new long[INITIAL_BUCKETS / 2];
+    }
+
+    /**
+     * @return the number of items indexed.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the slots able to take more of the item, or null if there is none.
+     */
+    BitSet candidates(int itemId) {
+        int position = find(itemId);
+        return position < 0 ? null : candidates[position];
+    }
+
+    /**
+     * @return the slots holding the item, or null if there is none.
+     */
+    BitSet holding(int itemId) {
+        int position = find(itemId);
+        return position < 0 ? null : holding[position];
+    }
+
+    long total(int itemId) {
+        int position = find(itemId);
+        return position < 0 ? 0 : totals[position];
+    }
+
+    void addCandidate(int itemId, int slotIndex) {
+        int position = findOrAdd(itemId);
+        if (candidates[position] == null) {
+            candidates[position] = new BitSet(nbOfSlots);
+        }
+        candidates[position].set(slotIndex);
+    }
+
+    void removeCandidate(int itemId, int slotIndex) {
+        int position = find(itemId);
+        candidates[position].clear(slotIndex);
+        removeIfUnused(position);
+    }
+
+    void addHolding(int itemId, int slotIndex, int quantity) {
+        int position = findOrAdd(itemId);
+        if (holding[position] == null) {
+            holding[position] = new BitSet(nbOfSlots);
+        }
+        holding[position].set(slotIndex);
+        totals[position] += quantity;
+    }
+
+    void removeHolding(int itemId, int slotIndex, int quantity) {
+        int position = find(itemId);
+        holding[position].clear(slotIndex);
+        totals[position] -= quantity;
+        removeIfUnused(position);
+    }
+
+    private int find(int itemId) {
+        int mask = buckets.length - 1;
+        for (int i = home(itemId); buckets[i] != EMPTY; i = (i + 1) & mask) {
+            if (itemIds[buckets[i] - 1] == itemId) {
+                return buckets[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int findOrAdd(int itemId) {
+        int position = find(itemId);
+        if (position >= 0) {
+            return position;
+        }
+        if (size == itemIds.length) {
+            int capacity = 2 * size;
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            candidates = Arrays.copyOf(candidates, capacity);
+            holding = Arrays.copyOf(holding, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+        }
+        position = size++;
+        itemIds[position] = itemId;
+        if (size > buckets.length / 2) {
+            rehash(2 * buckets.length);
+        } else {
+            insert(position);
+        }
+        return position;
+    }
+
+    /**
+     * Removes the entry once no slot is indexed under its item, moving the last entry in its place.
+     */
+    private void removeIfUnused(int position) {
+        if ((candidates[position] != null && !candidates[position].isEmpty())
+                || (holding[position] != null && !holding[position].isEmpty())) {
+            return;
+        }
+        deleteBucket(bucketOf(itemIds[position]));
+        int last = --size;
+        if (position != last) {
+            buckets[bucketOf(itemIds[last])] = position + 1;
+            itemIds[position] = itemIds[last];
+            candidates[position] = candidates[last];
+            holding[position] = holding[last];
+            totals[position] = totals[last];
+        }
+        candidates[last] = null;
+        holding[last] = null;
+        totals[last] = 0;
+    }
+
+    private int bucketOf(int itemId) {
+        int mask = buckets.length - 1;
+        int i = home(itemId);
+        while (itemIds[buckets[i] - 1] != itemId) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void deleteBucket(int bucket) {
+        int mask = buckets.length - 1;
+        int i = bucket;
+        // shift back the entries that probed past the deleted one
+        for (int j = (i + 1) & mask; buckets[j] != EMPTY; j = (j + 1) & mask) {
+            int home = home(itemIds[buckets[j] - 1]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                buckets[i] = buckets[j];
+                i = j;
+            }
+        }
+        buckets[i] = EMPTY;
+    }
+
+    private void insert(int position) {
+        int mask = buckets.length - 1;
+        int i = home(itemIds[position]);
+        while (buckets[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        buckets[i] = position + 1;
+    }
+
+    private int home(int itemId) {
+        return (itemId * PHI) >>> shift;
+    }
+
+    private void allocate(int nbOfBuckets) {
+        buckets = new int[nbOfBuckets];
+        shift = Integer.numberOfLeadingZeros(nbOfBuckets - 1);
+    }
+
+    private void rehash(int nbOfBuckets) {
+        allocate(nbOfBuckets);
+        for (int position = 0; position < size; position++) {
+            insert(position);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{size=%d, buckets=%d}"
+                .formatted(getClass().getSimpleName(), size, buckets.length);
+    }
+}
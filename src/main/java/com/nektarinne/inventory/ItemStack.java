@@ -39,7 +39,10 @@ public class ItemStack implements Comparable<ItemStack> {
     }
 
     public static int compare(ItemStack o1, ItemStack o2) {
-        return o1 == null ? 1 : o1.compareTo(o2);
+        if (o1 == null) {
+            return o2 == null ? 0 : 1;
+        }
+        return o1.compareTo(o2);
     }
 
     public Item item() {
@@ -79,16 +82,32 @@ public class ItemStack implements Comparable<ItemStack> {
         if (!Objects.equals(this.item, other.item)) {
             throw UnableToStackTwoDifferentItems.create(this.item, other.item);
         }
-        if (isMaxSize()) {
-            return other;
+        return remainder(other, merge(other.quantity));
+    }
+
+    /**
+     * Merges up to {@code quantity} items into this stack, without allocating.
+     *
+     * @param quantity the number of items of {@link #item()} to add, may exceed the stack size.
+     * @return the number of items that did not fit.
+     */
+    public int merge(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Unable to merge a negative quantity '%d'".formatted(quantity));
         }
-        if (this.quantity + other.quantity <= this.item.stackSize()) {
-            this.quantity = this.quantity + other.quantity;
+        int absorbed = Math.min(quantity, this.item.stackSize() - this.quantity);
+        this.quantity += absorbed;
+        return quantity - absorbed;
+    }
+
+    /**
+     * @return null if nothing is left, {@code original} if none of it has been taken, else a new stack of what is left.
+     */
+    static ItemStack remainder(ItemStack original, int left) {
+        if (left == 0) {
             return null;
         }
-        int diff = this.item.stackSize() - this.quantity;
-        this.quantity = this.item.stackSize();
-        return ItemStack.builder(this.item).quantity(other.quantity - diff).build();
+        return left == original.quantity ? original : new ItemStack(original.item, left);
     }
 
     public String repr() {
@@ -0,0 +1,140 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a {@link Slot} object per slot, each holding its {@link ItemStack} object.
+ */
+class ObjectSlotStorage implements SlotStorage {
+
+    private final List<Slot> slots;
+
+    ObjectSlotStorage(List<Slot> slots, int nbOfSlots) {
+        this.slots = new ArrayList<>(slots);
+        // Ensure the list has the correct number of slots by adding empty slots if needed.
+        while (this.slots.size() < nbOfSlots) {
+            this.slots.add(Slot.empty());
+        }
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public Slot slot(int slotIndex) {
+        return slots.get(slotIndex);
+    }
+
+    @Override
+    public ItemStack itemStack(int slotIndex) {
+        return slots.get(slotIndex).itemStack();
+    }
+
+    @Override
+    public ItemStack liveItemStack(int slotIndex) {
+        return slots.get(slotIndex).itemStack();
+    }
+
+    @Override
+    public Item lockedItem(int slotIndex) {
+        return slots.get(slotIndex).item();
+    }
+
+    @Override
+    public int itemId(int slotIndex) {
+        ItemStack itemStack = slots.get(slotIndex).itemStack();
+        return itemStack == null ? NONE : itemStack.item().id();
+    }
+
+    @Override
+    public int lockedItemId(int slotIndex) {
+        Item item = slots.get(slotIndex).item();
+        return item == null ? NONE : item.id();
+    }
+
+    @Override
+    public int quantity(int slotIndex) {
+        ItemStack itemStack = slots.get(slotIndex).itemStack();
+        return itemStack == null ? 0 : itemStack.quantity();
+    }
+
+    @Override
+    public boolean isEmpty(int slotIndex) {
+        return slots.get(slotIndex).isEmpty();
+    }
+
+    @Override
+    public void lock(int slotIndex) {
+        slots.get(slotIndex).lock();
+    }
+
+    @Override
+    public void unlock(int slotIndex) {
+        slots.get(slotIndex).unlock();
+    }
+
+    @Override
+    public int add(int slotIndex, Item item, int quantity) {
+        return slots.get(slotIndex).add(item, quantity);
+    }
+
+    @Override
+    public ItemStack remove(int slotIndex) {
+        return slots.get(slotIndex).remove();
+    }
+
+    @Override
+    public void restore(int slotIndex, Item item, ItemStack itemStack, int quantity) {
+        slots.get(slotIndex).restore(item, itemStack, quantity);
+    }
+
+    @Override
+    public void set(int slotIndex, int itemId, int quantity, int lockedItemId) {
+        ItemRegistry registry = ItemRegistry.global();
+        Slot slot = slots.get(slotIndex);
+        slot.item(lockedItemId == NONE ? null : registry.get(lockedItemId));
+        ItemStack itemStack = slot.itemStack();
+        if (itemId == NONE) {
+            slot.itemStack(null);
+        } else if (itemStack != null && itemStack.item().id() == itemId) {
+            // keep the live instance
+            itemStack.quantity(quantity);
+        } else {
+            slot.itemStack(ItemStack.builder(registry.get(itemId)).quantity(quantity).build());
+        }
+    }
+
+    @Override
+    public void permute(int[] order) {
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] < 0) {
+                continue;
+            }
+            // follow the cycle starting at i
+            Slot slot = slots.get(i);
+            int j = i;
+            while (true) {
+                int k = order[j];
+                order[j] = ~k;
+                if (k == i) {
+                    slots.set(j, slot);
+                    break;
+                }
+                slots.set(j, slots.get(k));
+                j = k;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{slots=%s}"
+                .formatted(getClass().getSimpleName(), slots);
+    }
+}
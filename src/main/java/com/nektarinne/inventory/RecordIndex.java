@@ -0,0 +1,142 @@
+package com.nektarinne.inventory;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a {@code long} key to a non-negative {@code long} value, with linear probing and
+ * backward-shift deletion. Holds no object per entry, so millions of entries cost two {@code long} arrays.
+ */
+final class RecordIndex {
+
+    static final long ABSENT = -1;
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+    private long[] keys;
+    private long[] values;
+    private int shift;
+    private int size;
+
+    RecordIndex() {
+        allocate(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value of the key, or {@link #ABSENT}.
+     */
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int i = home(key); values[i] != ABSENT; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @param value non-negative.
+     * @return the previous value of the key, or {@link #ABSENT}.
+     */
+    long put(long key, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value '%d' is invalid".formatted(value));
+        }
+        int mask = keys.length - 1;
+        int i = home(key);
+        for (; values[i] != ABSENT; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                long previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length / 2) {
+            rehash(2 * keys.length);
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @return the value of the removed key, or {@link #ABSENT}.
+     */
+    long remove(long key) {
+        int mask = keys.length - 1;
+        int i = home(key);
+        while (values[i] != ABSENT && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        long result = values[i];
+        if (result == ABSENT) {
+            return ABSENT;
+        }
+        // shift back the entries that probed past the removed one
+        for (int j = (i + 1) & mask; values[j] != ABSENT; j = (j + 1) & mask) {
+            int home = home(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = ABSENT;
+        size--;
+        return result;
+    }
+
+    /**
+     * @return the number of buckets, to iterate with {@link #keyAt(int)} and {@link #valueAt(int)}.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    long keyAt(int bucket) {
+        return keys[bucket];
+    }
+
+    /**
+     * @return the value in the bucket, {@link #ABSENT} if the bucket is empty.
+     */
+    long valueAt(int bucket) {
+        return values[bucket];
+    }
+
+    private int home(long key) {
+        return (int) ((key * PHI) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(values, ABSENT);
+        shift = Long.numberOfLeadingZeros(capacity - 1);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != ABSENT) {
+                int j = home(oldKeys[i]);
+                while (values[j] != ABSENT) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{size=%d, capacity=%d}"
+                .formatted(getClass().getSimpleName(), size, keys.length);
+    }
+}
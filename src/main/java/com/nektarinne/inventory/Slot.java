@@ -2,6 +2,8 @@ package com.nektarinne.inventory;
 
 import com.nektarinne.common.Item;
 
+import java.util.Objects;
+
 public class Slot implements Comparable<Slot> {
 
 
@@ -21,6 +23,16 @@ public class Slot implements Comparable<Slot> {
         return new Builder();
     }
 
+    /**
+     * @return a deep copy of {@code other}.
+     */
+    static Slot from(Slot other) {
+        return builder()
+                .item(other.item)
+                .itemStack(other.itemStack == null ? null : ItemStack.from(other.itemStack))
+                .build();
+    }
+
     public Item item() {
         return item;
     }
@@ -43,6 +55,75 @@ public class Slot implements Comparable<Slot> {
         return this.item == null && this.itemStack == null;
     }
 
+    /**
+     * Locks this slot to the item it holds.
+     */
+    void lock() {
+        if (isEmpty()) {
+            throw new IllegalArgumentException("Unable to lock an empty slot");
+        }
+        this.item = this.itemStack.item();
+    }
+
+    void unlock() {
+        if (isEmpty()) {
+            throw new IllegalArgumentException("Unable to unlock an empty slot");
+        }
+        this.item = null;
+    }
+
+    /**
+     * Adds a copy of the given {@link ItemStack} to this slot, if possible.
+     *
+     * @return Either
+     * <li>null if the stack to add has been fully absorbed;
+     * <li>an {@link ItemStack} if the stack to add has not been fully absorbed.
+     */
+    ItemStack add(ItemStack other) {
+        return ItemStack.remainder(other, add(other.item(), other.quantity()));
+    }
+
+    /**
+     * Adds up to {@code quantity} items to this slot, if possible. Only allocates the stack of an empty slot.
+     *
+     * @return the number of items that did not fit.
+     */
+    int add(Item item, int quantity) {
+        if (this.item == null || Objects.equals(this.item, item)) {
+            if (this.itemStack == null) {
+                int placed = Math.min(quantity, item.stackSize());
+                this.itemStack = ItemStack.builder(item).quantity(placed).build();
+                return quantity - placed;
+            }
+            if (!Objects.equals(this.itemStack.item(), item)) {
+                throw new IllegalStateException("Unable to add %dx%s to %s".formatted(quantity, item, this));
+            }
+            return this.itemStack.merge(quantity);
+        }
+        return quantity;
+    }
+
+    /**
+     * Puts back a state recorded earlier. {@code itemStack} is the very instance the slot was holding, its quantity
+     * may have changed since.
+     */
+    void restore(Item item, ItemStack itemStack, int quantity) {
+        this.item = item;
+        this.itemStack = itemStack;
+        if (itemStack != null) {
+            itemStack.quantity(quantity);
+        }
+    }
+
+    /**
+     * @return the removed {@link ItemStack}, or null if there was none.
+     */
+    ItemStack remove() {
+        ItemStack result = this.itemStack;
+        this.itemStack = null;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "%s{item=%s, itemStack=%s}"
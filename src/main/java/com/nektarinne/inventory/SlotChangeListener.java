@@ -0,0 +1,18 @@
+package com.nektarinne.inventory;
+
+/**
+ * Notified by an inventory right before one of its slots changes.
+ */
+@FunctionalInterface
+interface SlotChangeListener {
+
+    /**
+     * Receives the previous state of the slot, in primitives: nothing is built to report it.
+     *
+     * @param itemId       the item of the stack, or {@link SlotStorage#NONE}.
+     * @param lockedItemId the item the slot is locked to, or {@link SlotStorage#NONE}.
+     * @param itemStack    the stack object the slot holds, if the inventory keeps stack objects, so that the state can
+     *                     be put back on that very instance. Null otherwise.
+     */
+    void beforeChange(int slotIndex, int itemId, int quantity, int lockedItemId, ItemStack itemStack);
+}
@@ -0,0 +1,101 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+
+/**
+ * How an {@link Inventory} stores its slots. The methods mirror the ones of {@link Slot}, by slot index.
+ */
+interface SlotStorage {
+
+    /**
+     * Item id meaning "no item".
+     */
+    int NONE = -1;
+
+    int size();
+
+    /**
+     * @return the slot, or a detached view of it if the storage does not hold {@link Slot} objects.
+     */
+    Slot slot(int slotIndex);
+
+    /**
+     * @return the stack, or a detached view of it if the storage does not hold {@link ItemStack} objects.
+     */
+    ItemStack itemStack(int slotIndex);
+
+    /**
+     * @return the stack object the slot holds, or null if it holds none or if the storage does not hold
+     * {@link ItemStack} objects.
+     */
+    ItemStack liveItemStack(int slotIndex);
+
+    Item lockedItem(int slotIndex);
+
+    /**
+     * @return the id of the item of the stack, or {@link #NONE}.
+     */
+    int itemId(int slotIndex);
+
+    /**
+     * @return the id of the item the slot is locked to, or {@link #NONE}.
+     */
+    int lockedItemId(int slotIndex);
+
+    /**
+     * @return the quantity of the stack, 0 if there is none.
+     */
+    int quantity(int slotIndex);
+
+    default boolean isEmpty(int slotIndex) {
+        return itemId(slotIndex) == NONE && lockedItemId(slotIndex) == NONE;
+    }
+
+    /**
+     * @see Slot#lock()
+     */
+    void lock(int slotIndex);
+
+    /**
+     * @see Slot#unlock()
+     */
+    void unlock(int slotIndex);
+
+    /**
+     * @see Slot#add(ItemStack)
+     */
+    default ItemStack add(int slotIndex, ItemStack itemStack) {
+        return ItemStack.remainder(itemStack, add(slotIndex, itemStack.item(), itemStack.quantity()));
+    }
+
+    /**
+     * @return the number of items that did not fit.
+     * @see Slot#add(Item, int)
+     */
+    int add(int slotIndex, Item item, int quantity);
+
+    /**
+     * @see Slot#remove()
+     */
+    ItemStack remove(int slotIndex);
+
+    /**
+     * @see Slot#restore(Item, ItemStack, int)
+     */
+    void restore(int slotIndex, Item item, ItemStack itemStack, int quantity);
+
+    /**
+     * Overwrites the slot with the given primitive state.
+     *
+     * @param itemId   the item of the stack, or {@link #NONE} for no stack.
+     * @param quantity the quantity of the stack, ignored if there is no stack.
+     */
+    void set(int slotIndex, int itemId, int quantity, int lockedItemId);
+
+    /**
+     * Moves the slots in place: slot {@code i} takes what slot {@code order[i]} was holding.
+     *
+     * @param order a permutation of the slot indexes, used as working memory: its values are complemented.
+     */
+    void permute(int[] order);
+}
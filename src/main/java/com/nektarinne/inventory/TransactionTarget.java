@@ -0,0 +1,49 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+
+import java.util.List;
+
+/**
+ * What {@link InventoryTransaction} needs from an inventory, without making it part of the inventory's public API.
+ */
+interface TransactionTarget {
+
+    /**
+     * @return the rank in which the target must be acquired among the other targets of a transaction. Targets that do
+     * not lock anything can keep the default.
+     */
+    default long lockOrder() {
+        return -1;
+    }
+
+    /**
+     * Takes exclusive access to the target, and reports every slot change to {@code listener} until {@link #release()}.
+     */
+    void acquire(SlotChangeListener listener);
+
+    void release();
+
+    int nbOfSlots();
+
+    boolean holdsItemStack(int slotIndex);
+
+    /**
+     * Tells, before the target is acquired, whether the stacks could all be added to it. Only lets a transaction fail
+     * early: may answer true for stacks that turn out not to fit, never false for stacks that fit.
+     */
+    boolean canFit(List<ItemStack> itemStacks);
+
+    ItemStack add(ItemStack itemStack);
+
+    ItemStack add(int slotIndex, ItemStack itemStack);
+
+    ItemStack remove(int slotIndex);
+
+    /**
+     * Puts back a state reported to the {@link SlotChangeListener}.
+     *
+     * @see Slot#restore(Item, ItemStack, int)
+     */
+    void restore(int slotIndex, int itemId, int quantity, int lockedItemId, ItemStack itemStack);
+}
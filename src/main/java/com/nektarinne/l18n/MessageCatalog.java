@@ -0,0 +1,52 @@
+package com.nektarinne.l18n;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The messages of a locale, flattened from its {@link ResourceBundle} and its parents into a single map, and parsed
+ * into {@link MessageTemplate templates}. Loaded once per locale, then immutable.
+ */
+final class MessageCatalog {
+
+    private static final String BUNDLE_NAME = "l18n";
+    private static final ConcurrentMap<Locale, MessageCatalog> CATALOGS = new ConcurrentHashMap<>();
+
+    private final Locale locale;
+    private final Map<String, MessageTemplate> templates;
+
+    private MessageCatalog(Locale locale) {
+        ResourceBundle rb = ResourceBundle.getBundle(BUNDLE_NAME, locale);
+        Map<String, MessageTemplate> map = new HashMap<>();
+        for (String key : rb.keySet()) {
+            map.put(key, MessageTemplate.compile(rb.getString(key)));
+        }
+        this.locale = locale;
+        this.templates = Map.copyOf(map);
+    }
+
+    static MessageCatalog of(Locale locale) {
+        return CATALOGS.computeIfAbsent(locale, MessageCatalog::new);
+    }
+
+    Locale locale() {
+        return locale;
+    }
+
+    /**
+     * @return the template of the key, or null if there is no message for it.
+     */
+    MessageTemplate get(String key) {
+        return templates.get(key);
+    }
+
+    @Override
+    public String toString() {
+        return "%s{locale=%s, size=%d}"
+                .formatted(getClass().getSimpleName(), locale, templates.size());
+    }
+}
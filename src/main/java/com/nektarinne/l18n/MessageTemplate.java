@@ -0,0 +1,191 @@
+package com.nektarinne.l18n;
+
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A message with {@link java.util.Formatter} specifiers, parsed once.
+ * <p>
+ * Rendering gives the same result as {@link String#formatted(Object...)}. The plain {@code %s} and {@code %d}
+ * specifiers, by far the most common ones, are rendered by appending the argument; any other specifier still goes
+ * through {@link String#format(Locale, String, Object...)}, with its argument index made explicit. Immutable.
+ */
+final class MessageTemplate {
+
+    private static final Pattern SPECIFIER = Pattern.compile("%(\\d+\\$)?([-#+ 0,(<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+    private static final ConcurrentMap<Locale, Boolean> ASCII_DIGITS = new ConcurrentHashMap<>();
+    private static final byte STRING = 0;
+    private static final byte DECIMAL = 1;
+    private static final byte FORMATTER = 2;
+    private static final int NO_ARGUMENT = -1;
+
+    private final String text;
+    /**
+     * The text before each specifier, and after the last one.
+     */
+    private final String[] literals;
+    private final byte[] kinds;
+    private final int[] argIndexes;
+    private final String[] specifiers;
+
+    private MessageTemplate(String text, List<String> literals, List<Byte> kinds, List<Integer> argIndexes,
+                            List<String> specifiers) {
+        this.text = text;
+        this.literals = literals.toArray(String[]::new);
+        this.kinds = new byte[kinds.size()];
+        this.argIndexes = new int[kinds.size()];
+        for (int i = 0; i < kinds.size(); i++) {
+            this.kinds[i] = kinds.get(i);
+            this.argIndexes[i] = argIndexes.get(i);
+        }
+        this.specifiers = specifiers.toArray(String[]::new);
+    }
+
+    /**
+     * Never fails: a specifier the {@link java.util.Formatter} would reject is kept as is, and fails when rendered,
+     * with the exception the {@link java.util.Formatter} would have thrown.
+     */
+    static MessageTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Byte> kinds = new ArrayList<>();
+        List<Integer> argIndexes = new ArrayList<>();
+        List<String> specifiers = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        Matcher matcher = SPECIFIER.matcher(text);
+        int ordinaryIndex = 0;
+        int lastIndex = NO_ARGUMENT;
+        int position = 0;
+        while (position < text.length()) {
+            int percent = text.indexOf('%', position);
+            if (percent < 0) {
+                literal.append(text, position, text.length());
+                break;
+            }
+            literal.append(text, position, percent);
+            if (!matcher.find(percent) || matcher.start() != percent) {
+                // not a valid specifier: let the Formatter complain about it
+                addSpecifier(literals, kinds, argIndexes, specifiers, literal, FORMATTER, NO_ARGUMENT, text.substring(percent, percent + 1));
+                position = percent + 1;
+                continue;
+            }
+            position = matcher.end();
+            String explicitIndex = matcher.group(1);
+            String flags = matcher.group(2) == null ? "" : matcher.group(2);
+            String options = flags + nullToEmpty(matcher.group(3)) + nullToEmpty(matcher.group(4));
+            char conversion = matcher.group(6).charAt(0);
+            if ((conversion == '%' || conversion == 'n') && options.isEmpty() && matcher.group(5) == null) {
+                literal.append(conversion == '%' ? "%" : System.lineSeparator());
+                continue;
+            }
+            if (conversion == '%' || conversion == 'n') {
+                addSpecifier(literals, kinds, argIndexes, specifiers, literal, FORMATTER, NO_ARGUMENT, matcher.group());
+                continue;
+            }
+            int argIndex;
+            if (flags.indexOf('<') >= 0) {
+                argIndex = lastIndex;
+                options = options.replace("<", "");
+            } else if (explicitIndex != null) {
+                argIndex = Integer.parseInt(explicitIndex, 0, explicitIndex.length() - 1, 10) - 1;
+            } else {
+                argIndex = ordinaryIndex++;
+            }
+            lastIndex = argIndex;
+            String conversionText = nullToEmpty(matcher.group(5)) + conversion;
+            if (argIndex < 0) {
+                addSpecifier(literals, kinds, argIndexes, specifiers, literal, FORMATTER, NO_ARGUMENT, matcher.group());
+            } else if (options.isEmpty() && conversionText.equals("s")) {
+                addSpecifier(literals, kinds, argIndexes, specifiers, literal, STRING, argIndex, matcher.group());
+            } else if (options.isEmpty() && conversionText.equals("d")) {
+                addSpecifier(literals, kinds, argIndexes, specifiers, literal, DECIMAL, argIndex, matcher.group());
+            } else {
+                addSpecifier(literals, kinds, argIndexes, specifiers, literal, FORMATTER, argIndex,
+                        "%" + (argIndex + 1) + "$" + options + conversionText);
+            }
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(text, literals, kinds, argIndexes, specifiers);
+    }
+
+    private static void addSpecifier(List<String> literals, List<Byte> kinds, List<Integer> argIndexes,
+                                     List<String> specifiers, StringBuilder literal,
+                                     byte kind, int argIndex, String specifier) {
+        literals.add(literal.toString());
+        literal.setLength(0);
+        kinds.add(kind);
+        argIndexes.add(argIndex);
+        specifiers.add(specifier);
+    }
+
+    private static String nullToEmpty(String string) {
+        return string == null ? "" : string;
+    }
+
+    /**
+     * @return the message, not formatted.
+     */
+    String text() {
+        return text;
+    }
+
+    /**
+     * Appends the formatted message to {@code target}.
+     *
+     * @param locale the locale of the {@link java.util.Formatter}.
+     * @throws java.util.IllegalFormatException as {@link String#format(Locale, String, Object...)} would.
+     */
+    void render(StringBuilder target, Locale locale, Object... args) {
+        for (int i = 0; i < kinds.length; i++) {
+            target.append(literals[i]);
+            switch (kinds[i]) {
+                case STRING -> {
+                    Object arg = arg(args, i);
+                    if (arg instanceof Formattable) {
+                        target.append(String.format(locale, "%" + (argIndexes[i] + 1) + "$s", args));
+                    } else {
+                        target.append(arg);
+                    }
+                }
+                case DECIMAL -> {
+                    Object arg = arg(args, i);
+                    if (arg == null) {
+                        target.append("null");
+                    } else if ((arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte)
+                            && asciiDigits(locale)) {
+                        target.append(((Number) arg).longValue());
+                    } else {
+                        target.append(String.format(locale, "%" + (argIndexes[i] + 1) + "$d", args));
+                    }
+                }
+                default -> target.append(String.format(locale, specifiers[i], args));
+            }
+        }
+        target.append(literals[kinds.length]);
+    }
+
+    private Object arg(Object[] args, int specifier) {
+        int index = argIndexes[specifier];
+        if (index >= args.length) {
+            throw new MissingFormatArgumentException(specifiers[specifier]);
+        }
+        return args[index];
+    }
+
+    private static boolean asciiDigits(Locale locale) {
+        return ASCII_DIGITS.computeIfAbsent(locale, l -> DecimalFormatSymbols.getInstance(l).getZeroDigit() == '0');
+    }
+
+    @Override
+    public String toString() {
+        return "%s{text='%s'}"
+                .formatted(getClass().getSimpleName(), text);
+    }
+}
@@ -1,46 +1,207 @@
 package com.nektarinne.l18n;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The game settings, persisted in a properties file.
+ * <p>
+ * Reads go through an immutable {@link SettingsSnapshot}, published through a volatile reference and replaced on every
+ * change: reading takes no lock, and typed values are parsed once per change. {@link SettingsListener Listeners} are
+ * told about the changes.
+ * <p>
+ * The file is always replaced as a whole: written to a temporary file next to it, forced to disk, then renamed over
+ * it, so a crash leaves either the old file or the new one, never a truncated one.
+ * <p>
+ * By default, every {@link #set(String, String)} writes the file before returning. In write-behind mode (see
+ * {@link Builder#writeBehind(Duration)}), {@link #set(String, String)} only marks the settings dirty: a background
+ * thread writes them once the debounce interval after the first unsaved change has elapsed, so a burst of changes
+ * costs a single write. Unsaved changes are also written on {@link #flush()}, {@link #close()} and JVM shutdown.
+ */
+public class Settings implements AutoCloseable {
 
-public class Settings {
+    private static final Logger logger = LogManager.getLogger(Settings.class);
+    private static final Path DEFAULT_PATH = Path.of("src", "main", "resources", "settings.properties");
+    private static final Set<Settings> DIRTY = ConcurrentHashMap.newKeySet();
+    private static volatile ScheduledExecutorService writer;
 
-    private final Properties properties = new Properties();
-    private final Path settingsPath = Path.of("src", "main", "resources", "settings.properties");
+    private final Path settingsPath;
+    /**
+     * Null for synchronous writes.
+     */
+    private final Duration debounce;
+    private final Object writeLock = new Object();
+    private final List<SettingsListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile SettingsSnapshot snapshot;
+    private boolean flushScheduled;
 
     public Settings() {
+        this(builder());
+    }
+
+    private Settings(Builder builder) {
+        this.settingsPath = builder.path;
+        this.debounce = builder.debounce;
         createFileIfNeeded();
+        Properties properties = new Properties();
         try (InputStream inputStream = Files.newInputStream(settingsPath)) {
             properties.load(inputStream);
+            snapshot = SettingsSnapshot.of(properties);
         } catch (IOException e) {
             throw new UncheckedIOException("Unable to read the settings file", e);
         }
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
     public Object set(String property, String value) {
-        Object oldValue = properties.setProperty(property, value);
-        saveToFile();
+        Objects.requireNonNull(property);
+        Objects.requireNonNull(value);
+        String oldValue;
+        synchronized (this) {
+            oldValue = snapshot.getString(property);
+            if (value.equals(oldValue)) {
+                return oldValue;
+            }
+            snapshot = snapshot.with(property, value);
+            // in order, since changes are serialized
+            for (SettingsListener listener : listeners) {
+                listener.settingChanged(property, snapshot);
+            }
+        }
+        if (debounce == null) {
+            saveToFile();
+        } else {
+            scheduleFlush();
+        }
         return oldValue;
     }
 
     public Object get(String property) {
-        return properties.get(property);
+        return snapshot.getString(property);
     }
 
     public String getString(String property) {
-        return properties.getProperty(property);
+        return snapshot.getString(property);
+    }
+
+    /**
+     * @return the current settings. Never changes: get a new snapshot to see later changes.
+     */
+    public SettingsSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public void addListener(SettingsListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(SettingsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Writes the unsaved changes now, on the calling thread.
+     */
+    public void flush() {
+        boolean dirty;
+        synchronized (this) {
+            dirty = flushScheduled;
+            if (dirty) {
+                // under the same lock as the add, so that a change scheduled right after stays registered
+                DIRTY.remove(this);
+                flushScheduled = false;
+            }
+        }
+        if (dirty) {
+            saveToFile();
+        }
+    }
+
+    /**
+     * Writes the unsaved changes. The settings can still be used afterwards.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (flushScheduled) {
+                // coalesced with the changes already waiting
+                return;
+            }
+            flushScheduled = true;
+            DIRTY.add(this);
+        }
+        writer().schedule(this::flushInBackground, debounce.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            logger.error("Unable to save the settings file {}", settingsPath, e);
+        }
     }
 
     private void saveToFile() {
-        try (OutputStream outputStream = Files.newOutputStream(settingsPath)) {
-            properties.store(outputStream, "The game settings");
-        } catch (IOException e) {
-            throw new UncheckedIOException("Unable to save the settings file", e);
+        synchronized (writeLock) {
+            // read under the lock, so that the last write holds the last changes
+            Properties properties = snapshot.toProperties();
+            Path directory = settingsPath.toAbsolutePath().getParent();
+            Path tmp = null;
+            try {
+                tmp = Files.createTempFile(directory, settingsPath.getFileName().toString(), ".tmp");
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+                     OutputStream outputStream = Channels.newOutputStream(channel)) {
+                    properties.store(outputStream, "The game settings");
+                    channel.force(true);
+                }
+                try {
+                    Files.move(tmp, settingsPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, settingsPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                deleteQuietly(tmp);
+                throw new UncheckedIOException("Unable to save the settings file", e);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Unable to delete {}", path, e);
+            }
         }
     }
 
@@ -54,4 +215,73 @@ public class Settings {
         }
     }
 
+    /**
+     * One daemon thread shared by every write-behind {@link Settings}, created on first use along with the shutdown
+     * hook writing what is left.
+     */
+    private static ScheduledExecutorService writer() {
+        ScheduledExecutorService result = writer;
+        if (result == null) {
+            synchronized (Settings.class) {
+                result = writer;
+                if (result == null) {
+                    result = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "settings-writer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    Runtime.getRuntime().addShutdownHook(new Thread(Settings::flushAll, "settings-shutdown"));
+                    writer = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void flushAll() {
+        for (Settings settings : DIRTY) {
+            settings.flushInBackground();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{path=%s, debounce=%s}"
+                .formatted(getClass().getSimpleName(), settingsPath, debounce);
+    }
+
+    public static class Builder {
+        private Path path;
+        private Duration debounce;
+
+        private Builder() {
+            this.path = DEFAULT_PATH;
+        }
+
+        public Builder path(Path path) {
+            this.path = Objects.requireNonNull(path);
+            return this;
+        }
+
+        /**
+         * Writes the changes in the background, at most once per {@code debounce}.
+         */
+        public Builder writeBehind(Duration debounce) {
+            if (debounce.isNegative()) {
+                throw new IllegalArgumentException("debounce '%s' is invalid".formatted(debounce));
+            }
+            this.debounce = debounce;
+            return this;
+        }
+
+        public Settings build() {
+            return new Settings(this);
+        }
+
+        @Override
+        public String toString() {
+            return "%s{path=%s, debounce=%s}"
+                    .formatted(getClass().getSimpleName(), path, debounce);
+        }
+    }
 }
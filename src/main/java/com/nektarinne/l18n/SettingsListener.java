@@ -0,0 +1,15 @@
+package com.nektarinne.l18n;
+
+/**
+ * Notified by {@link Settings} when the value of a setting changes.
+ */
+@FunctionalInterface
+public interface SettingsListener {
+
+    /**
+     * Called on the thread changing the setting, once the new snapshot is published. Should not block.
+     *
+     * @param snapshot the settings, with the new value.
+     */
+    void settingChanged(String key, SettingsSnapshot snapshot);
+}
@@ -0,0 +1,114 @@
+package com.nektarinne.l18n;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable view of the {@link Settings} at a point in time. Values are parsed once, when the snapshot is taken, so the
+ * typed getters cost a map lookup.
+ */
+public final class SettingsSnapshot {
+
+    private final Map<String, String> strings;
+    private final Map<String, Integer> ints = new HashMap<>();
+    private final Map<String, Boolean> booleans = new HashMap<>();
+    private final Map<String, Locale> locales = new HashMap<>();
+
+    private SettingsSnapshot(Map<String, String> strings) {
+        this.strings = Map.copyOf(strings);
+        this.strings.forEach((key, value) -> {
+            try {
+                ints.put(key, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                // not an int
+            }
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                booleans.put(key, Boolean.parseBoolean(value));
+            }
+            if (!value.isBlank()) {
+                locales.put(key, Locale.forLanguageTag(value.trim()));
+            }
+        });
+    }
+
+    static SettingsSnapshot of(Properties properties) {
+        Map<String, String> strings = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            strings.put(key, properties.getProperty(key));
+        }
+        return new SettingsSnapshot(strings);
+    }
+
+    /**
+     * @return a snapshot with the given value, and the values of this one for the other keys.
+     */
+    SettingsSnapshot with(String key, String value) {
+        Map<String, String> copy = new HashMap<>(strings);
+        copy.put(key, value);
+        return new SettingsSnapshot(copy);
+    }
+
+    Properties toProperties() {
+        Properties result = new Properties();
+        result.putAll(strings);
+        return result;
+    }
+
+    public boolean contains(String key) {
+        return strings.containsKey(key);
+    }
+
+    /**
+     * @return the value, or null if the setting is not set.
+     */
+    public String getString(String key) {
+        return strings.get(key);
+    }
+
+    /**
+     * @return the value, or {@code defaultValue} if the setting is not set.
+     * @throws IllegalArgumentException if the value is not an int.
+     */
+    public int getInt(String key, int defaultValue) {
+        Integer result = ints.get(key);
+        if (result == null) {
+            checkAbsent(key, "an int");
+            return defaultValue;
+        }
+        return result;
+    }
+
+    /**
+     * @return the value, or {@code defaultValue} if the setting is not set.
+     * @throws IllegalArgumentException if the value is neither true nor false.
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Boolean result = booleans.get(key);
+        if (result == null) {
+            checkAbsent(key, "a boolean");
+            return defaultValue;
+        }
+        return result;
+    }
+
+    /**
+     * @return the value, read as an IETF BCP 47 language tag, or {@code defaultValue} if the setting is not set.
+     */
+    public Locale getLocale(String key, Locale defaultValue) {
+        return locales.getOrDefault(key, defaultValue);
+    }
+
+    private void checkAbsent(String key, String type) {
+        if (strings.containsKey(key)) {
+            throw new IllegalArgumentException("Setting '%s' is not %s: '%s'".formatted(key, type, strings.get(key)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{%s}"
+                .formatted(getClass().getSimpleName(), strings);
+    }
+}
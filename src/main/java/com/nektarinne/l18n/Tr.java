@@ -1,54 +1,51 @@
 package com.nektarinne.l18n;
 
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.Locale;
-import java.util.ResourceBundle;
 
+/**
+ * Translates message keys into the locale of the settings, following its changes. Delegates to {@link Translator},
+ * which callers with different locales should use directly.
+ */
 public class Tr {
 
     private static final String LOCALE_SETTING_KEY = "locale";
     private static final String DEFAULT_LANGUAGE_TAG = "en-US";
-    private final Settings settings = new Settings();
-    private ResourceBundle rb;
-    private Locale locale;
+    private static final Duration SETTINGS_DEBOUNCE = Duration.ofMillis(500);
+    private final Settings settings = Settings.builder().writeBehind(SETTINGS_DEBOUNCE).build();
+    private final Translator translator = Translator.global();
+    private volatile Locale locale;
 
     Tr() {
-        String tmp = settings.getString(LOCALE_SETTING_KEY);
-        if (tmp == null) {
+        settings.addListener((key, snapshot) -> {
+            if (key.equals(LOCALE_SETTING_KEY)) {
+                locale = snapshot.getLocale(LOCALE_SETTING_KEY, locale);
+            }
+        });
+        locale = settings.snapshot().getLocale(LOCALE_SETTING_KEY, null);
+        if (locale == null) {
             setLocale(DEFAULT_LANGUAGE_TAG);
-        } else {
-            locale = Locale.forLanguageTag(tmp);
         }
-        rb = ResourceBundle.getBundle("l18n", locale);
     }
 
     public String setLocale(String newLocale) {
         String old = String.valueOf(locale).replace("_", "-");
-        locale = Locale.forLanguageTag(newLocale);
         settings.set(LOCALE_SETTING_KEY, newLocale);
-        rb = ResourceBundle.getBundle("l18n", locale);
         return old;
     }
 
     public String tr(String key, Object... obj) {
-        String translatedKey = this.tr(key);
-        if (obj == null || obj.length == 0) {
-            return translatedKey;
-        }
-        try {
-            return translatedKey.formatted(obj);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("""
-                    Unable to format one of the arguments:
-                    %s
-                    %s""".formatted(translatedKey, Arrays.toString(obj)), e);
-        }
+        return translator.tr(locale, key, obj);
+    }
+
+    /**
+     * @see Translator#tr(StringBuilder, Locale, String, Object...)
+     */
+    public void tr(StringBuilder target, String key, Object... obj) {
+        translator.tr(target, locale, key, obj);
     }
 
     public String tr(String key) {
-        if (rb.containsKey(key)) {
-            return rb.getString(key);
-        }
-        return key;
+        return translator.tr(locale, key);
     }
 }
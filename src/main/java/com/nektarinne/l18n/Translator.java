@@ -0,0 +1,114 @@
+package com.nektarinne.l18n;
+
+import com.nektarinne.metrics.Counter;
+import com.nektarinne.metrics.Metrics;
+import com.nektarinne.metrics.Subsystem;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Thread-safe translation into any locale, for callers with different locales at the same time (e.g. a server sending
+ * messages to its players): they only need to keep their {@link Locale}.
+ * <p>
+ * The messages of a locale are loaded on first use into an immutable {@link MessageCatalog} shared by every caller, so
+ * translating takes no lock. Messages are formatted for their locale, into a buffer owned by the calling thread.
+ */
+public final class Translator {
+
+    private static final Translator GLOBAL = new Translator();
+    /**
+     * Buffers grown bigger than this by a long message are not kept.
+     */
+    private static final int MAX_BUFFER_CAPACITY = 8192;
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(StringBuilder::new);
+    private static final Counter TRANSLATIONS = Metrics.global().counter(Subsystem.L18N, "translations");
+    private static final Counter MISSING_KEYS = Metrics.global().counter(Subsystem.L18N, "missingKeys");
+
+    private Translator() {
+    }
+
+    public static Translator global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return the message of the key in the given locale, or the key itself if there is none.
+     */
+    public String tr(Locale locale, String key) {
+        MessageTemplate template = lookup(locale, key);
+        return template == null ? key : template.text();
+    }
+
+    /**
+     * @return the message of the key in the given locale, or the key itself if there is none, formatted with the
+     * given arguments.
+     */
+    public String tr(Locale locale, String key, Object... args) {
+        MessageTemplate template = template(locale, key);
+        if (args == null || args.length == 0) {
+            return template.text();
+        }
+        StringBuilder buffer = BUFFERS.get();
+        buffer.setLength(0);
+        render(buffer, locale, template, args);
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            BUFFERS.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Appends the translation to {@code target}, without creating any intermediate string for the plain {@code %s} and
+     * {@code %d} specifiers.
+     */
+    public void tr(StringBuilder target, Locale locale, String key, Object... args) {
+        MessageTemplate template = template(locale, key);
+        if (args == null || args.length == 0) {
+            target.append(template.text());
+        } else {
+            render(target, locale, template, args);
+        }
+    }
+
+    /**
+     * Like the {@link java.util.ResourceBundle} it replaces, falls back on the key itself.
+     */
+    private static MessageTemplate template(Locale locale, String key) {
+        MessageTemplate template = lookup(locale, key);
+        return template == null ? MessageTemplate.compile(key) : template;
+    }
+
+    /**
+     * @return the template of the key in the given locale, or null if there is none.
+     */
+    private static MessageTemplate lookup(Locale locale, String key) {
+        MessageTemplate template = MessageCatalog.of(Objects.requireNonNull(locale)).get(key);
+        TRANSLATIONS.increment();
+        if (template == null) {
+            MISSING_KEYS.increment();
+        }
+        return template;
+    }
+
+    private static void render(StringBuilder target, Locale locale, MessageTemplate template, Object[] args) {
+        int length = target.length();
+        try {
+            template.render(target, locale, args);
+        } catch (IllegalArgumentException e) {
+            target.setLength(length);
+            throw new RuntimeException("""
+                    Unable to format one of the arguments:
+                    %s
+                    %s""".formatted(template.text(), Arrays.toString(args)), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{}"
+                .formatted(getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,120 @@
+package com.nektarinne.metrics;
+
+import com.nektarinne.common.LongHistogram;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thread-safe {@link LongHistogram}, made of stripes each guarded by its own lock: a thread records into the stripe of
+ * its id, so threads recording at the same time seldom contend. Reading {@link #snapshot() merges} the stripes.
+ * <p>
+ * Timings are sampled: {@link #startTimer()} only reads the clock for one call in {@code sampling}, the others cost a
+ * random draw. Does nothing while its {@link Subsystem} is disabled.
+ */
+public final class ConcurrentHistogram {
+
+    /**
+     * Returned by {@link #startTimer()} when the call is not timed.
+     */
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final int MAX_STRIPES = 64;
+    private final String name;
+    private final Subsystem subsystem;
+    private final LongHistogram[] stripes;
+    private final int stripeMask;
+    private final int samplingMask;
+    private volatile boolean enabled;
+
+    /**
+     * @param sampling a power of 2, 1 to time every call.
+     */
+    ConcurrentHistogram(String name, Subsystem subsystem, boolean enabled, int sampling) {
+        if (sampling < 1 || Integer.bitCount(sampling) != 1) {
+            throw new IllegalArgumentException("sampling '%d' is not a power of 2".formatted(sampling));
+        }
+        this.name = name;
+        this.subsystem = subsystem;
+        this.enabled = enabled;
+        this.samplingMask = sampling - 1;
+        int nbOfStripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, 4 * Runtime.getRuntime().availableProcessors())));
+        this.stripes = new LongHistogram[nbOfStripes];
+        for (int i = 0; i < nbOfStripes; i++) {
+            this.stripes[i] = new LongHistogram();
+        }
+        this.stripeMask = nbOfStripes - 1;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Subsystem subsystem() {
+        return subsystem;
+    }
+
+    /**
+     * @return the number of calls {@link #startTimer()} times one of.
+     */
+    public int sampling() {
+        return samplingMask + 1;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void record(long value) {
+        if (enabled) {
+            LongHistogram stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+            synchronized (stripe) {
+                stripe.record(value);
+            }
+        }
+    }
+
+    /**
+     * @return the current time in nanoseconds if this call is sampled, {@link #NOT_TIMED} otherwise.
+     */
+    public long startTimer() {
+        if (!enabled || (samplingMask != 0 && (ThreadLocalRandom.current().nextInt() & samplingMask) != 0)) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time elapsed since {@code start}, unless it is {@link #NOT_TIMED}.
+     */
+    public void stopTimer(long start) {
+        if (start != NOT_TIMED) {
+            record(Math.max(0, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @return a copy of the values recorded so far, by every thread.
+     */
+    public LongHistogram snapshot() {
+        LongHistogram result = new LongHistogram();
+        for (LongHistogram stripe : stripes) {
+            synchronized (stripe) {
+                result.add(stripe);
+            }
+        }
+        return result;
+    }
+
+    void reset() {
+        for (LongHistogram stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "%s{name=%s, sampling=%d}"
+                .formatted(getClass().getSimpleName(), name, samplingMask + 1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.nektarinne.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count of events, backed by a {@link LongAdder}: threads incrementing it at the same time update different cells
+ * instead of contending on a single value. Does nothing while its {@link Subsystem} is disabled.
+ */
+public final class Counter {
+
+    private final String name;
+    private final Subsystem subsystem;
+    private final LongAdder adder = new LongAdder();
+    private volatile boolean enabled;
+
+    Counter(String name, Subsystem subsystem, boolean enabled) {
+        this.name = name;
+        this.subsystem = subsystem;
+        this.enabled = enabled;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Subsystem subsystem() {
+        return subsystem;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void increment() {
+        if (enabled) {
+            adder.increment();
+        }
+    }
+
+    public void add(long value) {
+        if (enabled && value != 0) {
+            adder.add(value);
+        }
+    }
+
+    public long sum() {
+        return adder.sum();
+    }
+
+    void reset() {
+        adder.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "%s{name=%s, sum=%d}"
+                .formatted(getClass().getSimpleName(), name, sum());
+    }
+}
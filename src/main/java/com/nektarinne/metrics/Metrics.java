@@ -0,0 +1,219 @@
+package com.nektarinne.metrics;
+
+import com.nektarinne.common.LongHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the {@link Counter counters} and {@link ConcurrentHistogram histograms} instrumenting the hot paths of
+ * the game. Instrumented classes register their metrics once, in static fields, and update them unconditionally.
+ * <p>
+ * Metrics are opt-in: every subsystem is disabled until {@link #enable(Subsystem) enabled}, either through this class
+ * or through the {@value #SUBSYSTEMS_PROPERTY} system property (a comma separated list of {@link Subsystem#prefix()
+ * prefixes}, or {@code all}). The metrics of a disabled subsystem cost a volatile read per update. Enabled, a counter
+ * update costs an uncontended compare-and-set and a histogram update an uncontended lock, which is why timings are
+ * sampled (see {@link #timer(Subsystem, String)}).
+ * <p>
+ * {@link #report()} gives a text snapshot of the metrics of the enabled subsystems, which can be logged periodically
+ * with {@link #startReporting(Duration)}. Values are cumulative until {@link #reset()}.
+ */
+public final class Metrics {
+
+    public static final String SUBSYSTEMS_PROPERTY = "nektarinne.metrics";
+    /**
+     * Timings read the clock for one call in this number.
+     */
+    static final int TIMER_SAMPLING = 64;
+    private static final Logger logger = LogManager.getLogger(Metrics.class);
+    private static final Metrics GLOBAL = new Metrics(System.getProperty(SUBSYSTEMS_PROPERTY, ""));
+    private final Map<String, Counter> counters = new TreeMap<>();
+    private final Map<String, ConcurrentHistogram> histograms = new TreeMap<>();
+    private final Set<Subsystem> enabled = EnumSet.noneOf(Subsystem.class);
+    private ScheduledExecutorService reporter;
+
+    Metrics() {
+    }
+
+    private Metrics(String subsystems) {
+        for (String prefix : subsystems.split(",")) {
+            String trimmed = prefix.trim().toLowerCase(Locale.ROOT);
+            for (Subsystem subsystem : Subsystem.values()) {
+                if (trimmed.equals("all") || trimmed.equals(subsystem.prefix())) {
+                    enabled.add(subsystem);
+                }
+            }
+        }
+    }
+
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return the counter named {@code <subsystem prefix>.<name>}, created on first call.
+     */
+    public synchronized Counter counter(Subsystem subsystem, String name) {
+        String fullName = fullName(subsystem, name);
+        checkUnique(fullName, histograms);
+        return counters.computeIfAbsent(fullName, k -> new Counter(k, subsystem, enabled.contains(subsystem)));
+    }
+
+    /**
+     * @return the histogram named {@code <subsystem prefix>.<name>}, recording every value, created on first call.
+     */
+    public synchronized ConcurrentHistogram histogram(Subsystem subsystem, String name) {
+        return histogram(subsystem, name, 1);
+    }
+
+    /**
+     * @return the histogram named {@code <subsystem prefix>.<name>}, timing one call in {@value #TIMER_SAMPLING} in
+     * nanoseconds, created on first call.
+     */
+    public synchronized ConcurrentHistogram timer(Subsystem subsystem, String name) {
+        return histogram(subsystem, name, TIMER_SAMPLING);
+    }
+
+    private ConcurrentHistogram histogram(Subsystem subsystem, String name, int sampling) {
+        String fullName = fullName(subsystem, name);
+        checkUnique(fullName, counters);
+        return histograms.computeIfAbsent(fullName,
+                k -> new ConcurrentHistogram(k, subsystem, enabled.contains(subsystem), sampling));
+    }
+
+    public synchronized void enable(Subsystem subsystem) {
+        setEnabled(Objects.requireNonNull(subsystem), true);
+    }
+
+    public synchronized void disable(Subsystem subsystem) {
+        setEnabled(Objects.requireNonNull(subsystem), false);
+    }
+
+    public synchronized boolean isEnabled(Subsystem subsystem) {
+        return enabled.contains(subsystem);
+    }
+
+    private void setEnabled(Subsystem subsystem, boolean value) {
+        if (value) {
+            enabled.add(subsystem);
+        } else {
+            enabled.remove(subsystem);
+        }
+        for (Counter counter : counters.values()) {
+            if (counter.subsystem() == subsystem) {
+                counter.setEnabled(value);
+            }
+        }
+        for (ConcurrentHistogram histogram : histograms.values()) {
+            if (histogram.subsystem() == subsystem) {
+                histogram.setEnabled(value);
+            }
+        }
+    }
+
+    /**
+     * Sets every metric back to zero.
+     */
+    public synchronized void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(ConcurrentHistogram::reset);
+    }
+
+    /**
+     * @return one line per metric of the enabled subsystems, sorted by name: the sum of a counter, or the count and
+     * the distribution of a histogram. A sampled timer also gives the estimated number of calls it was started for,
+     * its count times its sampling.
+     */
+    public String report() {
+        List<Counter> reportedCounters = new ArrayList<>();
+        List<ConcurrentHistogram> reportedHistograms = new ArrayList<>();
+        synchronized (this) {
+            for (Counter counter : counters.values()) {
+                if (enabled.contains(counter.subsystem())) {
+                    reportedCounters.add(counter);
+                }
+            }
+            for (ConcurrentHistogram histogram : histograms.values()) {
+                if (enabled.contains(histogram.subsystem())) {
+                    reportedHistograms.add(histogram);
+                }
+            }
+        }
+        StringBuilder result = new StringBuilder();
+        for (Counter counter : reportedCounters) {
+            result.append("%s %d%n".formatted(counter.name(), counter.sum()));
+        }
+        for (ConcurrentHistogram histogram : reportedHistograms) {
+            LongHistogram snapshot = histogram.snapshot();
+            result.append("%s count=%d min=%d p50=%d p90=%d p99=%d max=%d mean=%.1f".formatted(
+                    histogram.name(), snapshot.count(), snapshot.min(), snapshot.percentile(50),
+                    snapshot.percentile(90), snapshot.percentile(99), snapshot.max(), snapshot.mean()));
+            if (histogram.sampling() > 1) {
+                result.append(" estimatedCalls=%d".formatted(snapshot.count() * histogram.sampling()));
+            }
+            result.append(System.lineSeparator());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Logs the {@link #report()} every {@code period}, from a daemon thread, until {@link #stopReporting()}. Replaces
+     * the previous reporting, if any.
+     */
+    public synchronized void startReporting(Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("period '%s' is invalid".formatted(period));
+        }
+        stopReporting();
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::log, period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    private void log() {
+        String report = report();
+        if (!report.isEmpty()) {
+            logger.info("Metrics:%n%s".formatted(report.stripTrailing()));
+        }
+    }
+
+    private static String fullName(Subsystem subsystem, String name) {
+        Objects.requireNonNull(subsystem);
+        Objects.requireNonNull(name);
+        return subsystem.prefix() + "." + name;
+    }
+
+    private static void checkUnique(String fullName, Map<String, ?> others) {
+        if (others.containsKey(fullName)) {
+            throw new IllegalArgumentException("Metric '%s' is already registered with another type".formatted(fullName));
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "%s{counters=%d, histograms=%d, enabled=%s}"
+                .formatted(getClass().getSimpleName(), counters.size(), histograms.size(), enabled);
+    }
+}
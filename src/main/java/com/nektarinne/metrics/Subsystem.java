@@ -0,0 +1,22 @@
+package com.nektarinne.metrics;
+
+/**
+ * The parts of the game whose {@link Metrics metrics} can be enabled separately. Every metric name starts with the
+ * prefix of its subsystem.
+ */
+public enum Subsystem {
+    INVENTORY("inventory"),
+    DROP_TABLES("droptables"),
+    L18N("l18n"),
+    ;
+
+    private final String prefix;
+
+    Subsystem(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String prefix() {
+        return prefix;
+    }
+}
@@ -0,0 +1,90 @@
+package com.nektarinne.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+class ItemRegistryTest {
+
+    private final ItemRegistry underTest = ItemRegistry.global();
+
+    @Test
+    void intern_sameItem() {
+        Item item1 = Item.builder().name("registry item").category(Item.Category.EQUIPMENT).build();
+        Item item2 = Item.builder().name("registry item").category(Item.Category.EQUIPMENT).build();
+
+        assertThat(item2).isSameAs(item1);
+        assertThat(item2.id()).isEqualTo(item1.id());
+        assertThat(item2.hashCode()).isEqualTo(item1.hashCode());
+    }
+
+    @Test
+    void intern_differentItems() {
+        Item item = Item.builder().name("registry item").category(Item.Category.EQUIPMENT).build();
+        Item otherName = Item.builder().name("other registry item").category(Item.Category.EQUIPMENT).build();
+        Item otherCategory = Item.builder().name("registry item").category(Item.Category.CONSUMABLE).build();
+        Item otherStackSize = Item.builder().name("registry item").category(Item.Category.EQUIPMENT).stackSize(1).build();
+
+        assertThat(item).isNotEqualTo(otherName).isNotEqualTo(otherCategory).isNotEqualTo(otherStackSize);
+        assertThat(otherName.id()).isNotEqualTo(item.id());
+        assertThat(otherCategory.id()).isNotEqualTo(item.id());
+        assertThat(otherStackSize.id()).isNotEqualTo(item.id());
+    }
+
+    @Test
+    void get() {
+        Item item = Item.builder().name("registry item").category(Item.Category.EQUIPMENT).build();
+
+        assertThat(underTest.get(item.id())).isSameAs(item);
+        assertThat(underTest.size()).isGreaterThan(item.id());
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.get(-1));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.get(underTest.size()));
+    }
+
+    @Test
+    void find() {
+        Item item = Item.builder().name("found item").category(Item.Category.EQUIPMENT).build();
+        int size = underTest.size();
+
+        assertThat(underTest.find("found item", Item.Category.EQUIPMENT, item.stackSize())).isSameAs(item);
+        assertThat(underTest.find("found item", Item.Category.CONSUMABLE, item.stackSize())).isNull();
+        assertThat(underTest.find("never built", Item.Category.EQUIPMENT, item.stackSize())).isNull();
+        assertThat(underTest.size()).isEqualTo(size);
+    }
+
+    @Test
+    void sortRank() {
+        Item b = Item.builder().name("rank b").category(Item.Category.EQUIPMENT).build();
+        Item consumable = Item.builder().name("rank a").category(Item.Category.CONSUMABLE).build();
+        Item bSmallStack = Item.builder().name("rank b").category(Item.Category.EQUIPMENT).stackSize(1).build();
+        int rankB = underTest.sortRank(b.id());
+        Item a = Item.builder().name("rank a").category(Item.Category.EQUIPMENT).build();
+
+        assertThat(underTest.sortRank(a.id())).isLessThan(underTest.sortRank(b.id()));
+        assertThat(underTest.sortRank(b.id())).isGreaterThan(rankB);
+        assertThat(underTest.sortRank(b.id())).isLessThan(underTest.sortRank(consumable.id()));
+        // equal items share their rank
+        assertThat(underTest.sortRank(bSmallStack.id())).isEqualTo(underTest.sortRank(b.id()));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.sortRank(-1));
+    }
+
+    @Test
+    void intern_grows() {
+        int size = underTest.size();
+        for (int i = 0; i < 200; i++) {
+            Item item = Item.builder().name("registry item " + i).category(Item.Category.CONSUMABLE).build();
+            assertThat(underTest.get(item.id())).isSameAs(item);
+        }
+        assertThat(underTest.size()).isEqualTo(size + 200);
+    }
+
+    @Test
+    void intern_invalid() {
+        int size = underTest.size();
+        assertThatNullPointerException().isThrownBy(() -> Item.builder().category(Item.Category.CONSUMABLE).build());
+        assertThatNullPointerException().isThrownBy(() -> Item.builder().name("registry item").build());
+        assertThat(underTest.size()).isEqualTo(size);
+    }
+}
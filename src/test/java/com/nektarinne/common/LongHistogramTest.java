@@ -0,0 +1,79 @@
+package com.nektarinne.common;
+
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LongHistogramTest {
+
+    private final LongHistogram underTest = new LongHistogram();
+
+    @Test
+    void record_exactBelowSubBuckets() {
+        for (int i = 0; i < 10; i++) {
+            underTest.record(i);
+        }
+
+        assertThat(underTest.count()).isEqualTo(10);
+        assertThat(underTest.min()).isZero();
+        assertThat(underTest.max()).isEqualTo(9);
+        assertThat(underTest.mean()).isEqualTo(4.5);
+        assertThat(underTest.percentile(50)).isEqualTo(4);
+        assertThat(underTest.percentile(100)).isEqualTo(9);
+        assertThat(underTest.percentile(0)).isZero();
+    }
+
+    @Test
+    void percentile_boundedError() {
+        for (long i = 1; i <= 1_000_000; i++) {
+            underTest.record(i);
+        }
+
+        assertThat(underTest.percentile(50)).isCloseTo(500_000L, Percentage.withPercentage(3.2));
+        assertThat(underTest.percentile(99)).isCloseTo(990_000L, Percentage.withPercentage(3.2));
+        assertThat(underTest.percentile(100)).isEqualTo(1_000_000L);
+        assertThat(underTest.percentile(99)).isGreaterThanOrEqualTo(990_000L);
+    }
+
+    @Test
+    void record_largeValues() {
+        underTest.record(Long.MAX_VALUE);
+        underTest.record(1L << 40, 3);
+
+        assertThat(underTest.count()).isEqualTo(4);
+        assertThat(underTest.percentile(50)).isBetween(1L << 40, (1L << 40) + (1L << 40) / 16);
+        assertThat(underTest.percentile(100)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void add() {
+        LongHistogram other = new LongHistogram();
+        underTest.record(3);
+        other.record(5000, 2);
+
+        underTest.add(other);
+
+        assertThat(underTest.count()).isEqualTo(3);
+        assertThat(underTest.min()).isEqualTo(3);
+        assertThat(underTest.max()).isEqualTo(5000);
+        List<Long> counts = new ArrayList<>();
+        underTest.forEach((from, to, count) -> {
+            assertThat(from).isLessThanOrEqualTo(to);
+            counts.add(count);
+        });
+        assertThat(counts).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void invalid() {
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.record(-1));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.record(1, -1));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.percentile(101));
+        assertThat(underTest.percentile(50)).isZero();
+    }
+}
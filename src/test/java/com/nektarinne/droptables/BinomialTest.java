@@ -0,0 +1,63 @@
+package com.nektarinne.droptables;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.random.RandomGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class BinomialTest {
+
+    private final RandomGenerator random = RandomGenerator.of("L64X128MixRandom");
+
+    @ParameterizedTest
+    @CsvSource({
+            // inversion
+            "0, 0.5",
+            "10, 0.33",
+            "1000, 0.01",
+            "1000, 0.99",
+            // BTPE
+            "1000, 0.33",
+            "1000000, 0.05",
+            "1000000000000, 0.5",
+    })
+    void sample_meanAndVariance(long n, double p) {
+        int numberOfRuns = 20_000;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < numberOfRuns; i++) {
+            long result = Binomial.sample(random, n, p);
+            assertThat(result).isBetween(0L, n);
+            sum += result;
+            sumOfSquares += (double) result * result;
+        }
+        double mean = sum / numberOfRuns;
+        double variance = sumOfSquares / numberOfRuns - mean * mean;
+        double expectedVariance = n * p * (1 - p);
+
+        // 5 standard errors of the mean, 10% of the variance
+        assertThat(mean).isCloseTo(n * p, Offset.offset(5 * Math.sqrt(expectedVariance / numberOfRuns) + 1e-9));
+        assertThat(variance).isCloseTo(expectedVariance, Offset.offset(0.1 * expectedVariance + 1e-9));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "10, 0",
+            "10, 1",
+    })
+    void sample_certain(long n, double p) {
+        assertThat(Binomial.sample(random, n, p)).isEqualTo((long) (n * p));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "-1, 0.5",
+    })
+    void sample_invalid(long n, double p) {
+        assertThatIllegalArgumentException().isThrownBy(() -> Binomial.sample(random, n, p));
+    }
+}
@@ -0,0 +1,85 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DropAccumulatorTest {
+
+    private static final Item ITEM_1 = Item.builder().name("item 1").category(Item.Category.EQUIPMENT).build();
+    private static final Item ITEM_2 = Item.builder().name("item 2").category(Item.Category.CONSUMABLE).build();
+    private static final Item ITEM_3 = Item.builder().name("item 3").category(Item.Category.CONSUMABLE).build();
+
+    private final DropTable dropTable = new DropTable(Map.of(ITEM_1, 1.0),
+            Map.of(new DropTable(Map.of(ITEM_2, 1.0, ITEM_1, 1.0), Map.of()), 1.0));
+
+    @Test
+    void drop_accumulates() {
+        DropAccumulator underTest = new DropAccumulator(0);
+
+        dropTable.drop(underTest);
+        dropTable.drop(underTest);
+
+        assertThat(underTest.size()).isEqualTo(2);
+        assertThat(underTest.get(ITEM_1)).isEqualTo(4);
+        assertThat(underTest.get(ITEM_2)).isEqualTo(2);
+        assertThat(underTest.get(ITEM_3)).isZero();
+        assertThat(underTest.toMap()).isEqualTo(Map.of(ITEM_1, 4L, ITEM_2, 2L));
+    }
+
+    @Test
+    void drop_multipleTimes() {
+        DropAccumulator underTest = new DropAccumulator(0);
+
+        dropTable.drop(1_000, underTest);
+
+        assertThat(underTest.get(ITEM_1)).isEqualTo(2_000);
+        assertThat(underTest.get(ITEM_2)).isEqualTo(1_000);
+    }
+
+    @Test
+    void iterate() {
+        DropAccumulator underTest = new DropAccumulator(0);
+        dropTable.drop(underTest);
+        Map<Item, Long> result = new HashMap<>();
+
+        for (int i = 0; i < underTest.size(); i++) {
+            result.put(underTest.item(i), underTest.quantity(i));
+        }
+
+        assertThat(result).isEqualTo(underTest.toMap());
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.item(2));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.quantity(-1));
+    }
+
+    @Test
+    void clear() {
+        DropAccumulator underTest = new DropAccumulator(0);
+        dropTable.drop(underTest);
+
+        underTest.clear();
+
+        assertThat(underTest.isEmpty()).isTrue();
+        assertThat(underTest.get(ITEM_1)).isZero();
+        dropTable.drop(underTest);
+        assertThat(underTest.get(ITEM_1)).isEqualTo(2);
+    }
+
+    @Test
+    void drop_grows() {
+        DropAccumulator underTest = new DropAccumulator(0);
+
+        dropTable.drop(underTest);
+
+        assertThat(underTest.get(ITEM_1)).isEqualTo(2);
+        assertThat(underTest.get(ITEM_3)).isZero();
+        // to the highest item id of the table, not of the registry
+        assertThat(underTest.toString()).contains("capacity=%d".formatted(Math.max(ITEM_1.id(), ITEM_2.id()) + 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new DropAccumulator(-1));
+    }
+}
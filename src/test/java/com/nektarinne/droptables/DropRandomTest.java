@@ -0,0 +1,80 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DropRandomTest {
+
+    private static final Item ITEM_1 = Item.builder().name("item 1").category(Item.Category.EQUIPMENT).build();
+    private static final Item ITEM_2 = Item.builder().name("item 2").category(Item.Category.CONSUMABLE).build();
+    private final DropTable dropTable = new DropTable(Map.of(ITEM_1, 0.33),
+            Map.of(new DropTable(Map.of(ITEM_2, 0.5), Map.of()), 0.2));
+
+    @AfterEach
+    void afterEach() {
+        DropRandom.resetCurrent();
+    }
+
+    private List<Map<Item, Integer>> drops(RandomGenerator random) {
+        List<Map<Item, Integer>> result = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            result.add(dropTable.drop(random));
+        }
+        return result;
+    }
+
+    @Test
+    void seeded() {
+        assertThat(drops(DropRandom.seeded(42))).isEqualTo(drops(DropRandom.seeded(42)));
+        assertThat(dropTable.drop(DropRandom.seeded(42), 1_000_000))
+                .isEqualTo(dropTable.drop(DropRandom.seeded(42), 1_000_000));
+    }
+
+    @Test
+    void setCurrent() {
+        DropRandom.setCurrent(DropRandom.seeded(42));
+        List<Map<Item, Integer>> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(dropTable.drop());
+        }
+
+        assertThat(drops(DropRandom.seeded(42))).isEqualTo(expected);
+    }
+
+    @Test
+    void split() throws ExecutionException, InterruptedException {
+        int nbOfWorkers = 4;
+        List<Map<Item, Long>> expected = new ArrayList<>();
+        for (RandomGenerator random : DropRandom.split(42, nbOfWorkers)) {
+            expected.add(dropTable.drop(random, 10_000));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbOfWorkers);
+        try {
+            List<Future<Map<Item, Long>>> futures = new ArrayList<>();
+            for (RandomGenerator random : DropRandom.split(42, nbOfWorkers)) {
+                futures.add(executor.submit(() -> dropTable.drop(random, 10_000)));
+            }
+            for (int i = 0; i < nbOfWorkers; i++) {
+                assertThat(futures.get(i).get()).isEqualTo(expected.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(expected).doesNotHaveDuplicates();
+        assertThatIllegalArgumentException().isThrownBy(() -> DropRandom.split(42, -1));
+    }
+}
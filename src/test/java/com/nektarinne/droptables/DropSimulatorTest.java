@@ -0,0 +1,81 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import org.assertj.core.data.Offset;
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DropSimulatorTest {
+
+    private static final Item ITEM_1 = Item.builder().name("item 1").category(Item.Category.EQUIPMENT).build();
+    private static final Item ITEM_2 = Item.builder().name("item 2").category(Item.Category.CONSUMABLE).build();
+    private final DropTable dropTable = new DropTable(Map.of(ITEM_1, 0.5),
+            Map.of(new DropTable(Map.of(ITEM_2, 0.1), Map.of()), 0.1));
+
+    @Test
+    void simulate() {
+        long trials = 5 * DropSimulator.CHUNK_SIZE + 123;
+
+        DropSimulation result = new DropSimulator().simulate(dropTable, trials, 42);
+
+        assertThat(result.trials()).isEqualTo(trials);
+        DropSimulation.ItemStatistics item1 = result.statistics(ITEM_1);
+        assertThat(item1.mean()).isCloseTo(0.5, Offset.offset(0.01));
+        assertThat(item1.variance()).isCloseTo(0.25, Offset.offset(0.01));
+        assertThat(item1.quantities().count()).isEqualTo(trials);
+        assertThat(item1.total()).isEqualTo(trials - countOf(item1, 0));
+        assertThat(item1.quantityPercentile(40)).isZero();
+        assertThat(item1.quantityPercentile(60)).isEqualTo(1);
+
+        DropSimulation.ItemStatistics item2 = result.statistics(ITEM_2);
+        assertThat(item2.mean()).isCloseTo(0.01, Percentage.withPercentage(10));
+        // geometric distribution of the trials without the item: P(X <= k) = 1 - 0.99^(k+1)
+        assertThat(item2.dryStreakPercentile(50)).isCloseTo(68L, Percentage.withPercentage(10));
+        assertThat(item2.dryStreakPercentile(90)).isCloseTo(228L, Percentage.withPercentage(10));
+        // every drop but the first ends a streak, and the first one ends the streak since the first trial
+        assertThat(item2.dryStreaks().count()).isEqualTo(item2.total());
+        assertThat(result.statistics(Item.builder().name("other").category(Item.Category.EQUIPMENT).build())).isNull();
+    }
+
+    private static long countOf(DropSimulation.ItemStatistics statistics, long value) {
+        long[] result = new long[1];
+        statistics.quantities().forEach((from, to, count) -> {
+            if (from == value) {
+                result[0] = count;
+            }
+        });
+        return result[0];
+    }
+
+    @Test
+    void simulate_sameSeedSameResultWhateverTheParallelism() {
+        long trials = 3 * DropSimulator.CHUNK_SIZE;
+
+        DropSimulation sequential = new DropSimulator(new ForkJoinPool(1)).simulate(dropTable, trials, 42);
+        DropSimulation parallel = new DropSimulator(new ForkJoinPool(4)).simulate(dropTable, trials, 42);
+
+        for (Item item : new Item[]{ITEM_1, ITEM_2}) {
+            DropSimulation.ItemStatistics expected = sequential.statistics(item);
+            DropSimulation.ItemStatistics actual = parallel.statistics(item);
+            assertThat(actual.total()).isEqualTo(expected.total());
+            assertThat(actual.variance()).isEqualTo(expected.variance());
+            assertThat(actual.dryStreaks().count()).isEqualTo(expected.dryStreaks().count());
+            assertThat(actual.dryStreaks().mean()).isEqualTo(expected.dryStreaks().mean());
+        }
+    }
+
+    @Test
+    void simulate_noTrial() {
+        DropSimulation result = new DropSimulator().simulate(dropTable, 0, 42);
+
+        assertThat(result.statistics()).hasSize(2);
+        assertThat(result.statistics(ITEM_1).total()).isZero();
+        assertThatIllegalArgumentException().isThrownBy(() -> new DropSimulator().simulate(dropTable, -1, 42));
+    }
+}
@@ -0,0 +1,74 @@
+package com.nektarinne.droptables;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DropTableGraphTest {
+
+    private static final Item ITEM_1 = Item.builder().name("item 1").category(Item.Category.EQUIPMENT).build();
+    private static final Item ITEM_2 = Item.builder().name("item 2").category(Item.Category.CONSUMABLE).build();
+
+    @Test
+    void build() {
+        DropTableGraph underTest = DropTableGraph.builder()
+                .table("boss")
+                .table("rare", DropTable.Mode.EXCLUSIVE)
+                .table("veryRare")
+                .item("boss", ITEM_1, 0.5)
+                .link("boss", "rare", 0.1)
+                .link("boss", "veryRare", 0.01)
+                .link("rare", "veryRare", 0.5)
+                .item("veryRare", ITEM_2, 1)
+                .build();
+
+        assertThat(underTest.order()).containsExactly("veryRare", "rare", "boss");
+        DropTable boss = underTest.get("boss");
+        assertThat(boss.dropTableProbabilities()).containsEntry(underTest.get("rare"), 0.1);
+        assertThat(underTest.get("rare").mode()).isEqualTo(DropTable.Mode.EXCLUSIVE);
+        assertThat(underTest.get("rare").dropTableProbabilities()).containsOnlyKeys(underTest.get("veryRare"));
+        assertThat(boss.drop(1_000_000).get(ITEM_2)).isPositive();
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.get("unknown"));
+    }
+
+    @Test
+    void build_cycle() {
+        DropTableGraph.Builder underTest = DropTableGraph.builder()
+                .table("a")
+                .table("b")
+                .table("c")
+                .table("d")
+                .link("a", "b", 0.5)
+                .link("b", "c", 0.5)
+                .link("c", "a", 0.5)
+                .link("d", "a", 0.5);
+
+        assertThatExceptionOfType(CyclicDropTableException.class)
+                .isThrownBy(underTest::build)
+                .withMessageContaining("a -> b -> c -> a");
+    }
+
+    @Test
+    void build_selfLink() {
+        DropTableGraph.Builder underTest = DropTableGraph.builder()
+                .table("a")
+                .link("a", "a", 0.5);
+
+        assertThatExceptionOfType(CyclicDropTableException.class)
+                .isThrownBy(underTest::build)
+                .withMessageContaining("a -> a");
+    }
+
+    @Test
+    void build_invalid() {
+        assertThatIllegalArgumentException().isThrownBy(() -> DropTableGraph.builder().table("a").table("a"));
+        assertThatIllegalArgumentException().isThrownBy(() -> DropTableGraph.builder().item("a", ITEM_1, 0.5));
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                DropTableGraph.builder().table("a").link("a", "b", 0.5).build());
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                DropTableGraph.builder().table("a").item("a", ITEM_1, 2).build());
+    }
+}
@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 class DropTableTest {
 
@@ -40,6 +41,106 @@ class DropTableTest {
         assertThat(stats.get("item2_sum")).isCloseTo((int) (ITEM_2_PROBA * numberOfRuns), Percentage.withPercentage(10));
     }
 
+    @Test
+    void drop_linkedTable() {
+        DropTable linked = new DropTable(Map.of(ITEM_2, 0.5), Map.of());
+        DropTable underTest = new DropTable(Map.of(ITEM_1, ITEM_1_PROBA), Map.of(linked, 0.2));
+        Map<String, Integer> stats = new HashMap<>();
+        int numberOfRuns = 10_000;
+
+        for (int i = 0; i < numberOfRuns; i++) {
+            compileStats(underTest.drop(), stats);
+        }
+
+        assertThat(stats.get("item2_maxValue")).isEqualTo(1);
+        assertThat(stats.get("item1_sum")).isCloseTo((int) (ITEM_1_PROBA * numberOfRuns), Percentage.withPercentage(10));
+        assertThat(stats.get("item2_sum")).isCloseTo((int) (0.2 * 0.5 * numberOfRuns), Percentage.withPercentage(15));
+    }
+
+    @Test
+    void drop_exclusive() {
+        DropTable linked = new DropTable(Map.of(ITEM_2, 1.0), Map.of());
+        DropTable underTest = new DropTable(Map.of(ITEM_1, 0.5), Map.of(linked, 0.3), DropTable.Mode.EXCLUSIVE);
+        Map<String, Integer> stats = new HashMap<>();
+        int numberOfRuns = 10_000;
+        int both = 0;
+
+        for (int i = 0; i < numberOfRuns; i++) {
+            Map<Item, Integer> drop = underTest.drop();
+            if (drop.size() > 1) {
+                both++;
+            }
+            compileStats(drop, stats);
+        }
+
+        assertThat(both).isZero();
+        assertThat(stats.get("item1_sum")).isCloseTo((int) (0.5 * numberOfRuns), Percentage.withPercentage(10));
+        assertThat(stats.get("item2_sum")).isCloseTo((int) (0.3 * numberOfRuns), Percentage.withPercentage(10));
+    }
+
+    @Test
+    void drop_deepChain() {
+        DropTable underTest = new DropTable(Map.of(ITEM_1, 0.5), Map.of());
+        for (int i = 0; i < 10_000; i++) {
+            underTest = new DropTable(Map.of(), Map.of(underTest, i % 2 == 0 ? 1.0 : 0.9999));
+        }
+
+        Map<Item, Long> result = underTest.drop(1_000_000);
+
+        assertThat(underTest.compile().toString()).contains("nodes=1");
+        assertThat(underTest.drop()).doesNotContainKey(ITEM_2);
+        assertThat(result.get(ITEM_1)).isCloseTo((long) (1_000_000 * 0.5 * Math.pow(0.9999, 5_000)), Percentage.withPercentage(1));
+    }
+
+    @Test
+    void compile_deepGraphs() {
+        DropTable independent = new DropTable(Map.of(ITEM_1, 0.5), Map.of());
+        DropTable exclusive = new DropTable(Map.of(ITEM_1, 0.5), Map.of(), DropTable.Mode.EXCLUSIVE);
+        for (int i = 0; i < 100_000; i++) {
+            independent = new DropTable(Map.of(ITEM_2, 0.5), Map.of(independent, 0.5));
+            exclusive = new DropTable(Map.of(ITEM_2, 0.25), Map.of(exclusive, 0.5), DropTable.Mode.EXCLUSIVE);
+        }
+        DropTable underTest = new DropTable(Map.of(), Map.of(independent, 0.5, exclusive, 0.5));
+
+        assertThat(underTest.compile().toString()).contains("nodes=");
+        assertThat(underTest.drop(1000).keySet()).isSubsetOf(ITEM_1, ITEM_2);
+    }
+
+    @Test
+    void drop_nestedExclusive() {
+        DropTable both = new DropTable(Map.of(ITEM_1, 1.0, ITEM_2, 1.0), Map.of());
+        DropTable nested = new DropTable(Map.of(ITEM_2, 0.5), Map.of(both, 0.5), DropTable.Mode.EXCLUSIVE);
+        DropTable underTest = new DropTable(Map.of(ITEM_1, 0.2), Map.of(nested, 0.6), DropTable.Mode.EXCLUSIVE);
+        int numberOfRuns = 10_000;
+        int bothCount = 0;
+        Map<String, Integer> stats = new HashMap<>();
+
+        for (int i = 0; i < numberOfRuns; i++) {
+            Map<Item, Integer> drop = underTest.drop();
+            if (drop.size() == 2) {
+                bothCount++;
+            }
+            compileStats(drop, stats);
+        }
+        Map<Item, Long> bulk = underTest.drop(10_000_000);
+
+        assertThat(stats.get("item1_maxValue")).isEqualTo(1);
+        assertThat(stats.get("item2_maxValue")).isEqualTo(1);
+        assertThat(bothCount).isCloseTo((int) (0.3 * numberOfRuns), Percentage.withPercentage(10));
+        assertThat(stats.get("item1_sum")).isCloseTo((int) (0.5 * numberOfRuns), Percentage.withPercentage(10));
+        assertThat(stats.get("item2_sum")).isCloseTo((int) (0.6 * numberOfRuns), Percentage.withPercentage(10));
+        assertThat(bulk.get(ITEM_1)).isCloseTo(5_000_000L, Percentage.withPercentage(1));
+        assertThat(bulk.get(ITEM_2)).isCloseTo(6_000_000L, Percentage.withPercentage(1));
+    }
+
+    @Test
+    void constructor_invalidProbabilities() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new DropTable(Map.of(ITEM_1, 1.5), Map.of()));
+        assertThatIllegalArgumentException().isThrownBy(() -> new DropTable(Map.of(ITEM_1, -0.5), Map.of()));
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                new DropTable(Map.of(ITEM_1, 0.6, ITEM_2, 0.6), Map.of(), DropTable.Mode.EXCLUSIVE));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {10, 100, 1_000, 10_000, 100_000})
     void drop_multipleTimes(int dropTimes) {
@@ -64,9 +165,29 @@ class DropTableTest {
         assertThat(stats.get("item2_sum")).isCloseTo((int) (ITEM_2_PROBA * expected), Percentage.withPercentage(5));
     }
 
-    private void compileStats(Map<Item, Integer> drop, Map<String, Integer> stats) {
-        int item1Quantity = drop.getOrDefault(ITEM_1, 0);
-        int item2Quantity = drop.getOrDefault(ITEM_2, 0);
+    @Test
+    void drop_multipleTimes_linkedTables() {
+        DropTable linked = new DropTable(Map.of(ITEM_2, 0.5), Map.of());
+        DropTable exclusive = new DropTable(Map.of(ITEM_1, 0.25), Map.of(linked, 0.5), DropTable.Mode.EXCLUSIVE);
+        DropTable underTest = new DropTable(Map.of(), Map.of(exclusive, 0.1));
+        long times = 1_000_000_000_000L;
+
+        Map<Item, Long> result = underTest.drop(times);
+
+        assertThat(result.get(ITEM_1)).isCloseTo((long) (times * 0.1 * 0.25), Percentage.withPercentage(0.1));
+        assertThat(result.get(ITEM_2)).isCloseTo((long) (times * 0.1 * 0.5 * 0.5), Percentage.withPercentage(0.1));
+    }
+
+    @Test
+    void drop_multipleTimes_invalid() {
+        DropTable underTest = new DropTable(Map.of(ITEM_1, ITEM_1_PROBA), Map.of());
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.drop(-1));
+        assertThat(underTest.drop(0)).isEmpty();
+    }
+
+    private void compileStats(Map<Item, ? extends Number> drop, Map<String, Integer> stats) {
+        int item1Quantity = drop.containsKey(ITEM_1) ? drop.get(ITEM_1).intValue() : 0;
+        int item2Quantity = drop.containsKey(ITEM_2) ? drop.get(ITEM_2).intValue() : 0;
         stats.compute("item1_minValue", (k, v) -> (v == null || item1Quantity < v) ? item1Quantity : v);
         stats.compute("item1_maxValue", (k, v) -> (v == null || item1Quantity > v) ? item1Quantity : v);
 
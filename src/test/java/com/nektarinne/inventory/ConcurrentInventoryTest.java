@@ -0,0 +1,144 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ConcurrentInventoryTest {
+
+    private final Item oakLog = Item.builder()
+            .name("oakLog")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    private final Item oakPlank = Item.builder()
+            .name("oakPlank")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    private ConcurrentInventory underTest;
+
+    @Test
+    void constructor_invalidBuilder() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                ConcurrentInventory.builder()
+                        .withNbOfSlots(-1)
+                        .build());
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                ConcurrentInventory.builder()
+                        .withNbOfSlots(0)
+                        .withSlots(List.of(Slot.builder().build()))
+                        .build());
+    }
+
+    @Test
+    void getSlot_returnsCopies() {
+        underTest = ConcurrentInventory.builder().withNbOfSlots(1).build();
+        underTest.add(0, ItemStack.builder(oakLog).quantity(5).build());
+
+        underTest.getItemStack(0).quantity(1);
+        underTest.getSlot(0).itemStack(null);
+
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(5);
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.getSlot(1));
+    }
+
+    @Test
+    void lockAndUnlock() {
+        ItemStack itemStack = ItemStack.builder(oakPlank).quantity(5).build();
+        underTest = ConcurrentInventory.builder().withNbOfSlots(1).build();
+        underTest.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.lock(0);
+        underTest.remove(0);
+        assertThat(underTest.getItem(0)).isEqualTo(oakLog);
+        assertThat(underTest.add(0, itemStack)).isEqualTo(itemStack);
+
+        underTest.unlock(0);
+
+        assertThat(underTest.add(0, itemStack)).isNull();
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                ConcurrentInventory.builder().withNbOfSlots(1).build().lock(0));
+    }
+
+    @Test
+    void add() {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = ConcurrentInventory.builder().withNbOfSlots(2).build();
+        underTest.add(1, ItemStack.builder(item).quantity(5).build());
+
+        assertThat(underTest.add(ItemStack.builder(item).quantity(3).build())).isNull();
+        assertThat(underTest.getItemStack(1).quantity()).isEqualTo(6);
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(2);
+
+        ItemStack result = underTest.add(ItemStack.builder(oakLog).quantity(3).build());
+        assertThat(result.item()).isEqualTo(oakLog);
+        assertThat(result.quantity()).isEqualTo(3);
+    }
+
+    @Test
+    void sort() {
+        underTest = ConcurrentInventory.builder().withNbOfSlots(3).build();
+        underTest.add(2, ItemStack.builder(oakPlank).quantity(4).build());
+        underTest.add(1, ItemStack.builder(oakLog).quantity(5).build());
+
+        underTest.sort();
+
+        assertThat(underTest.getItemStack(0).item()).isEqualTo(oakLog);
+        assertThat(underTest.getItemStack(1).item()).isEqualTo(oakPlank);
+        assertThat(underTest.getSlot(2).isEmpty()).isTrue();
+    }
+
+    @Test
+    void concurrentAddAndRemove() throws Exception {
+        int nbOfSlots = 64;
+        int nbOfThreads = 8;
+        int iterations = 2_000;
+        underTest = ConcurrentInventory.builder().withNbOfSlots(nbOfSlots).build();
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger leftovers = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(nbOfThreads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < nbOfThreads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        int slotIndex = (thread * 8 + i) % nbOfSlots;
+                        ItemStack result = (i & 1) == 0
+                                ? underTest.add(ItemStack.builder(oakLog).quantity(1).build())
+                                : underTest.add(slotIndex, ItemStack.builder(oakLog).quantity(1).build());
+                        if (result != null) {
+                            leftovers.addAndGet(result.quantity());
+                        }
+                        if (i % 10 == 0) {
+                            ItemStack itemStack = underTest.remove(slotIndex);
+                            if (itemStack != null) {
+                                removed.addAndGet(itemStack.quantity());
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        int remaining = 0;
+        for (int i = 0; i < nbOfSlots; i++) {
+            ItemStack itemStack = underTest.getItemStack(i);
+            remaining += itemStack == null ? 0 : itemStack.quantity();
+        }
+        // nothing has been lost or duplicated
+        assertThat(remaining + removed.get() + leftovers.get()).isEqualTo(nbOfThreads * iterations);
+    }
+}
@@ -0,0 +1,149 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import com.nektarinne.common.ItemRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class InventoryCodecTest {
+
+    private final Item oakLog = Item.builder()
+            .name("oakLog")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    private final Item sword = Item.builder()
+            .name("épée")
+            .category(Item.Category.CONSUMABLE)
+            .stackSize(1)
+            .build();
+    private final InventoryCodec underTest = new InventoryCodec();
+
+    private Inventory inventory(Inventory.Storage storage) {
+        Inventory inventory = Inventory.builder()
+                .withNbOfSlots(5)
+                .withStorage(storage)
+                .build();
+        inventory.add(0, ItemStack.builder(oakLog).quantity(12).build());
+        inventory.add(1, ItemStack.builder(sword).quantity(1).build());
+        inventory.lock(1);
+        inventory.add(3, ItemStack.builder(oakLog).quantity(3).build());
+        inventory.lock(3);
+        inventory.remove(3);
+        return inventory;
+    }
+
+    private static void assertSameSlots(Inventory actual, Inventory expected) {
+        assertThat(actual.nbOfSlots()).isEqualTo(expected.nbOfSlots());
+        for (int i = 0; i < expected.nbOfSlots(); i++) {
+            assertThat(actual.getSlot(i).item()).isEqualTo(expected.getSlot(i).item());
+            assertThat(actual.getItemStack(i)).isEqualTo(expected.getItemStack(i));
+            assertThat(actual.getItem(i)).isEqualTo(expected.getItem(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void roundTrip(Inventory.Storage storage) {
+        Inventory inventory = inventory(storage);
+        ByteBuffer buffer = ByteBuffer.allocate(underTest.encodedSize(inventory));
+
+        underTest.write(inventory, buffer);
+        assertThat(buffer.hasRemaining()).isFalse();
+        buffer.flip();
+
+        for (Inventory.Storage target : Inventory.Storage.values()) {
+            Inventory result = underTest.read(buffer.duplicate()).toInventory(target);
+            assertSameSlots(result, inventory);
+        }
+        Inventory result = underTest.read(buffer).toInventory(storage);
+        assertThat(buffer.hasRemaining()).isFalse();
+        result.add(ItemStack.builder(oakLog).quantity(3).build());
+        assertThat(result.getItemStack(0)).isEqualTo(ItemStack.builder(oakLog).quantity(15).build());
+        result.add(ItemStack.builder(sword).quantity(1).build());
+        assertThat(result.getItemStack(2)).isEqualTo(ItemStack.builder(sword).quantity(1).build());
+    }
+
+    @Test
+    void read_lazyView() {
+        Inventory inventory = inventory(Inventory.Storage.OBJECTS);
+        ByteBuffer buffer = ByteBuffer.allocate(underTest.encodedSize(inventory));
+        underTest.write(inventory, buffer);
+        buffer.flip();
+
+        EncodedInventory result = underTest.read(buffer);
+
+        assertThat(result.nbOfSlots()).isEqualTo(5);
+        assertThat(result.getItemStack(0)).isEqualTo(ItemStack.builder(oakLog).quantity(12).build());
+        assertThat(result.getItem(1)).isEqualTo(sword);
+        assertThat(result.getItemStack(2)).isNull();
+        assertThat(result.getItem(2)).isNull();
+        assertThat(result.getItemStack(3)).isNull();
+        assertThat(result.getItem(3)).isEqualTo(oakLog);
+    }
+
+    @Test
+    void fileChannel(@TempDir Path directory) throws IOException {
+        Inventory first = inventory(Inventory.Storage.COMPACT);
+        Inventory second = Inventory.builder().withNbOfSlots(2).build();
+        Path file = directory.resolve("inventories.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            underTest.write(first, channel);
+            underTest.write(second, channel);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertSameSlots(underTest.read(channel, 0).toInventory(Inventory.Storage.OBJECTS), first);
+            long position = underTest.encodedSize(first);
+            assertSameSlots(underTest.read(channel, position).toInventory(Inventory.Storage.OBJECTS), second);
+        }
+    }
+
+    @Test
+    void read_corrupted() {
+        Inventory inventory = inventory(Inventory.Storage.OBJECTS);
+        ByteBuffer buffer = ByteBuffer.allocate(underTest.encodedSize(inventory));
+        underTest.write(inventory, buffer);
+
+        ByteBuffer badMagic = ByteBuffer.wrap(buffer.array().clone()).putInt(0, 42);
+        assertThatExceptionOfType(CorruptedInventoryException.class).isThrownBy(() -> underTest.read(badMagic));
+
+        ByteBuffer truncated = ByteBuffer.wrap(buffer.array(), 0, buffer.capacity() - 1).slice();
+        assertThatExceptionOfType(CorruptedInventoryException.class).isThrownBy(() -> underTest.read(truncated));
+
+        // the name of the first palette entry
+        ByteBuffer unknownItem = ByteBuffer.wrap(buffer.array().clone()).put(InventoryCodec.HEADER_SIZE + Short.BYTES, (byte) '#');
+        int registrySize = ItemRegistry.global().size();
+        assertThatExceptionOfType(CorruptedInventoryException.class).isThrownBy(() -> underTest.read(unknownItem));
+        assertThat(ItemRegistry.global().size()).isEqualTo(registrySize);
+
+        ByteBuffer badQuantity = ByteBuffer.wrap(buffer.array().clone());
+        badQuantity.putInt(buffer.capacity() - 5 * InventoryCodec.SLOT_SIZE + Integer.BYTES, 1000);
+        EncodedInventory result = underTest.read(badQuantity);
+        assertThatExceptionOfType(CorruptedInventoryException.class).isThrownBy(() -> result.getItemStack(0));
+        assertThatExceptionOfType(CorruptedInventoryException.class)
+                .isThrownBy(() -> result.toInventory(Inventory.Storage.COMPACT));
+    }
+
+    @Test
+    void read_hugePalette() {
+        Inventory inventory = inventory(Inventory.Storage.OBJECTS);
+        ByteBuffer buffer = ByteBuffer.allocate(underTest.encodedSize(inventory));
+        underTest.write(inventory, buffer);
+
+        // the palette size, last of the header
+        ByteBuffer hugePalette = ByteBuffer.wrap(buffer.array().clone())
+                .putInt(InventoryCodec.HEADER_SIZE - Integer.BYTES, Integer.MAX_VALUE);
+
+        assertThatExceptionOfType(CorruptedInventoryException.class).isThrownBy(() -> underTest.read(hugePalette));
+    }
+}
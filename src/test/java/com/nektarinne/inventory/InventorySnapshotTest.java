@@ -0,0 +1,98 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class InventorySnapshotTest {
+
+    private final Item oakLog = Item.builder()
+            .name("oakLog")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    private final Item oakPlank = Item.builder()
+            .name("oakPlank")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void snapshot(Inventory.Storage storage) {
+        Inventory inventory = Inventory.builder().withNbOfSlots(3).withStorage(storage).build();
+        inventory.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        inventory.add(1, ItemStack.builder(oakPlank).quantity(4).build());
+        inventory.lock(1);
+
+        InventorySnapshot underTest = inventory.snapshot();
+        inventory.remove(0);
+        inventory.unlock(1);
+
+        assertThat(underTest.nbOfSlots()).isEqualTo(3);
+        assertThat(underTest.getItemStack(0)).isEqualTo(ItemStack.builder(oakLog).quantity(5).build());
+        assertThat(underTest.itemId(0)).isEqualTo(oakLog.id());
+        assertThat(underTest.quantity(0)).isEqualTo(5);
+        assertThat(underTest.getItem(1)).isEqualTo(oakPlank);
+        assertThat(underTest.getSlot(1).itemStack()).isEqualTo(ItemStack.builder(oakPlank).quantity(4).build());
+        assertThat(underTest.isEmpty(2)).isTrue();
+        assertThat(underTest.itemId(2)).isEqualTo(InventorySnapshot.NONE);
+        assertThat(inventory.snapshot().getItemStack(0)).isNull();
+        assertThat(inventory.snapshot().getItem(1)).isNull();
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.itemId(3));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.quantity(-1));
+    }
+
+    @Test
+    void snapshot_sharesUnchangedChunks() {
+        int chunkSize = InventorySnapshot.CHUNK_SIZE;
+        Inventory inventory = Inventory.builder().withNbOfSlots(3 * chunkSize + 1).build();
+        InventorySnapshot first = inventory.snapshot();
+
+        assertThat(inventory.snapshot()).isSameAs(first);
+
+        inventory.add(chunkSize + 1, ItemStack.builder(oakLog).quantity(5).build());
+        InventorySnapshot second = inventory.snapshot();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.chunk(0)).isSameAs(first.chunk(0));
+        assertThat(second.chunk(1)).isNotSameAs(first.chunk(1));
+        assertThat(second.chunk(2)).isSameAs(first.chunk(2));
+        assertThat(second.chunk(3)).isSameAs(first.chunk(3));
+        assertThat(second.quantity(chunkSize + 1)).isEqualTo(5);
+        assertThat(first.quantity(chunkSize + 1)).isZero();
+    }
+
+    @Test
+    void snapshot_readFromAnotherThread() throws Exception {
+        Inventory inventory = Inventory.builder().withNbOfSlots(100).build();
+        AtomicReference<InventorySnapshot> published = new AtomicReference<>(inventory.snapshot());
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            for (int round = 0; round < 1_000; round++) {
+                InventorySnapshot snapshot = published.get();
+                long total = 0;
+                for (int i = 0; i < snapshot.nbOfSlots(); i++) {
+                    total += snapshot.quantity(i);
+                }
+                // the writer keeps one oak log per slot it has filled, and fills the slots in order
+                int filled = 0;
+                while (filled < snapshot.nbOfSlots() && !snapshot.isEmpty(filled)) {
+                    filled++;
+                }
+                assertThat(total).isEqualTo(filled);
+            }
+        });
+        for (int i = 0; i < inventory.nbOfSlots(); i++) {
+            inventory.add(i, ItemStack.builder(oakLog).quantity(1).build());
+            published.set(inventory.snapshot());
+        }
+
+        reader.get();
+        assertThat(published.get().quantity(99)).isEqualTo(1);
+    }
+}
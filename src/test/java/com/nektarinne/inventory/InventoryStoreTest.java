@@ -0,0 +1,236 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class InventoryStoreTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+    private final Item oakLog = Item.builder()
+            .name("oakLog")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    private final Item oakPlank = Item.builder()
+            .name("oakPlank")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    @TempDir
+    private Path directory;
+
+    @Test
+    void putAndRead() {
+        try (InventoryStore underTest = open()) {
+            underTest.put(42, inventory(3));
+
+            assertThat(underTest.contains(42)).isTrue();
+            assertThat(underTest.contains(43)).isFalse();
+            assertThat(underTest.size()).isEqualTo(1);
+            assertThat(underTest.nbOfSlots(42)).isEqualTo(3);
+            assertThat(underTest.getItemStack(42, 0)).isEqualTo(ItemStack.builder(oakLog).quantity(5).build());
+            assertThat(underTest.getItem(42, 1)).isEqualTo(oakPlank);
+            assertThat(underTest.getItemStack(42, 2)).isNull();
+            assertThat(underTest.count(42, oakLog)).isEqualTo(5);
+            assertThat(underTest.count(42, Item.builder().name("never stored").category(Item.Category.CONSUMABLE).build()))
+                    .isZero();
+            Inventory inventory = underTest.get(42, Inventory.Storage.COMPACT);
+            assertThat(inventory.getItemStack(1)).isEqualTo(ItemStack.builder(oakPlank).quantity(4).build());
+            assertThat(inventory.getItem(1)).isEqualTo(oakPlank);
+            assertThat(inventory.getSlot(2).isEmpty()).isTrue();
+            assertThat(underTest.get(43, Inventory.Storage.OBJECTS)).isNull();
+            assertThatIllegalArgumentException().isThrownBy(() -> underTest.nbOfSlots(43));
+            assertThatIllegalArgumentException().isThrownBy(() -> underTest.getItemStack(42, 3));
+        }
+    }
+
+    @Test
+    void setItemStack_inPlace() throws IOException {
+        try (InventoryStore underTest = open()) {
+            underTest.put(42, inventory(3));
+
+            underTest.setItemStack(42, 1, ItemStack.builder(oakLog).quantity(2).build());
+            underTest.setItemStack(42, 0, null);
+
+            assertThat(underTest.getItemStack(42, 0)).isNull();
+            assertThat(underTest.getItemStack(42, 1)).isEqualTo(ItemStack.builder(oakLog).quantity(2).build());
+            // the lock is kept
+            assertThat(underTest.getItem(42, 1)).isEqualTo(oakPlank);
+            assertThat(underTest.deadBytes()).isZero();
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(InventoryStore.RECORDS_FILE), StandardOpenOption.READ)) {
+            // the item and the quantity are one aligned long
+            long position = InventoryStore.HEADER_SIZE + InventoryStore.stackOffset(1);
+            ByteBuffer stack = ByteBuffer.allocate(Long.BYTES);
+            channel.read(stack, position);
+            assertThat(position % Long.BYTES).isZero();
+            assertThat(stack.flip().getLong() & 0xFFFFFFFFL).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void builder_rejectsUnalignedSegmentSize() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> InventoryStore.builder().directory(directory).segmentSize(SEGMENT_SIZE + 4).build());
+    }
+
+    @Test
+    void reopen() {
+        try (InventoryStore underTest = open()) {
+            underTest.put(1, inventory(3));
+            underTest.put(2, inventory(5));
+            underTest.put(1, inventory(10));
+            underTest.remove(2);
+        }
+
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.size()).isEqualTo(1);
+            assertThat(underTest.nbOfSlots(1)).isEqualTo(10);
+            assertThat(underTest.getItemStack(1, 0)).isEqualTo(ItemStack.builder(oakLog).quantity(5).build());
+            assertThat(underTest.deadBytes())
+                    .isEqualTo(InventoryStore.recordSize(3) + InventoryStore.recordSize(5));
+        }
+    }
+
+    @Test
+    void compact() throws IOException {
+        try (InventoryStore underTest = open()) {
+            for (int i = 0; i < 100; i++) {
+                underTest.put(i % 10, inventory(3 + i % 7));
+            }
+            long size = Files.size(directory.resolve(InventoryStore.RECORDS_FILE));
+
+            underTest.compact();
+
+            assertThat(underTest.deadBytes()).isZero();
+            assertThat(Files.size(directory.resolve(InventoryStore.RECORDS_FILE))).isLessThan(size);
+            assertThat(underTest.size()).isEqualTo(10);
+            underTest.put(10, inventory(3));
+            underTest.setItemStack(3, 0, ItemStack.builder(oakPlank).quantity(1).build());
+        }
+
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.size()).isEqualTo(11);
+            assertThat(underTest.nbOfSlots(9)).isEqualTo(3 + 99 % 7);
+            assertThat(underTest.getItemStack(3, 0)).isEqualTo(ItemStack.builder(oakPlank).quantity(1).build());
+            assertThat(underTest.getItem(10, 1)).isEqualTo(oakPlank);
+        }
+    }
+
+    @Test
+    void compact_failureKeepsStore() throws IOException {
+        try (InventoryStore underTest = open()) {
+            underTest.put(1, inventory(3));
+            underTest.put(1, inventory(4));
+            // the temporary file cannot be written
+            Files.createDirectory(directory.resolve(InventoryStore.RECORDS_FILE + ".tmp"));
+
+            assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(underTest::compact);
+
+            assertThat(underTest.deadBytes()).isEqualTo(InventoryStore.recordSize(3));
+            assertThat(underTest.nbOfSlots(1)).isEqualTo(4);
+            underTest.put(2, inventory(5));
+            underTest.setItemStack(1, 0, null);
+            underTest.compact();
+        }
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.size()).isEqualTo(2);
+            assertThat(underTest.getItemStack(1, 0)).isNull();
+            assertThat(underTest.nbOfSlots(2)).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void open_ignoresUnfinishedRecord() throws IOException {
+        long end;
+        try (InventoryStore underTest = open()) {
+            underTest.put(1, inventory(3));
+            end = InventoryStore.HEADER_SIZE + InventoryStore.recordSize(3);
+        }
+        // a crash while appending: everything but the state has been written
+        try (FileChannel channel = FileChannel.open(directory.resolve(InventoryStore.RECORDS_FILE), StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(InventoryStore.recordSize(10))
+                    .putInt(InventoryStore.FREE)
+                    .putLong(1)
+                    .putInt(10);
+            while (record.hasRemaining()) {
+                record.putInt(7);
+            }
+            channel.write(record.flip(), end);
+        }
+
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.nbOfSlots(1)).isEqualTo(3);
+            // the unfinished record is overwritten
+            underTest.put(2, inventory(1));
+        }
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.size()).isEqualTo(2);
+            assertThat(underTest.nbOfSlots(2)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void open_killsReplacedRecord() throws IOException {
+        try (InventoryStore underTest = open()) {
+            underTest.put(1, inventory(3));
+            underTest.put(1, inventory(4));
+        }
+        // a crash between making the new record live and killing the previous one
+        try (FileChannel channel = FileChannel.open(directory.resolve(InventoryStore.RECORDS_FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(InventoryStore.LIVE).flip(), InventoryStore.HEADER_SIZE);
+        }
+
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.size()).isEqualTo(1);
+            assertThat(underTest.nbOfSlots(1)).isEqualTo(4);
+            assertThat(underTest.deadBytes()).isEqualTo(InventoryStore.recordSize(3));
+        }
+    }
+
+    @Test
+    void put_spansSegments() {
+        try (InventoryStore underTest = open()) {
+            // each record takes about a third of a segment
+            for (int i = 0; i < 20; i++) {
+                underTest.put(i, inventory(25));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertThat(underTest.getItem(i, 1)).isEqualTo(oakPlank);
+            }
+            assertThatIllegalArgumentException().isThrownBy(() -> underTest.put(20, inventory(SEGMENT_SIZE / 12)));
+        }
+        try (InventoryStore underTest = open()) {
+            assertThat(underTest.size()).isEqualTo(20);
+            assertThat(underTest.getItemStack(19, 0)).isEqualTo(ItemStack.builder(oakLog).quantity(5).build());
+        }
+    }
+
+    private InventoryStore open() {
+        return InventoryStore.builder().directory(directory).segmentSize(SEGMENT_SIZE).build();
+    }
+
+    /**
+     * 5 oak logs, then a slot locked to oak planks holding 4 of them, then empty slots.
+     */
+    private Inventory inventory(int nbOfSlots) {
+        Inventory result = Inventory.builder().withNbOfSlots(nbOfSlots).build();
+        result.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        if (nbOfSlots > 1) {
+            result.add(1, ItemStack.builder(oakPlank).quantity(4).build());
+            result.lock(1);
+        }
+        return result;
+    }
+}
@@ -1,9 +1,16 @@
 package com.nektarinne.inventory;
 
 import com.nektarinne.common.Item;
+import com.nektarinne.metrics.Counter;
+import com.nektarinne.metrics.Metrics;
+import com.nektarinne.metrics.Subsystem;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatException;
@@ -220,6 +227,197 @@ class InventoryTest {
         assertThat(underTest.getSlot(0).itemStack().isMaxSize()).isTrue();
     }
 
+    @Test
+    void add_fillsPartialStacksFirst() {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = Inventory.builder().withNbOfSlots(4).build();
+        underTest.add(1, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(2, ItemStack.builder(item).quantity(5).build());
+        underTest.add(3, ItemStack.builder(item).quantity(6).build());
+
+        ItemStack result = underTest.add(ItemStack.builder(item).quantity(3).build());
+
+        assertThat(result).isNull();
+        assertThat(underTest.getItemStack(2).quantity()).isEqualTo(6);
+        assertThat(underTest.getItemStack(3).quantity()).isEqualTo(6);
+        assertThat(underTest.getItemStack(0).item()).isEqualTo(item);
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(2);
+    }
+
+    @Test
+    void add_reusesFreedSlot() {
+        underTest = Inventory.builder().withNbOfSlots(3).build();
+        underTest.add(ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(ItemStack.builder(oakPlank).quantity(5).build());
+        underTest.remove(0);
+
+        underTest.add(ItemStack.builder(oakPlank).quantity(64).build());
+
+        assertThat(underTest.getItemStack(1).quantity()).isEqualTo(64);
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(5);
+        assertThat(underTest.getItemStack(2)).isNull();
+    }
+
+    @Test
+    void add_afterLockAndSort() {
+        underTest = Inventory.builder().withNbOfSlots(3).build();
+        underTest.add(2, ItemStack.builder(oakPlank).quantity(5).build());
+        underTest.lock(2);
+        underTest.remove(2);
+        underTest.add(1, ItemStack.builder(oakLog).quantity(5).build());
+
+        underTest.sort();
+        ItemStack result = underTest.add(ItemStack.builder(oakPlank).quantity(3).build());
+
+        // the slot locked to oakPlank has been sorted first and takes the stack
+        assertThat(result).isNull();
+        assertThat(underTest.getItem(0)).isEqualTo(oakPlank);
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(3);
+        assertThat(underTest.getItemStack(1).item()).isEqualTo(oakLog);
+        assertThat(underTest.getSlot(2).isEmpty()).isTrue();
+    }
+
+    @Test
+    void add_largeInventory() {
+        int nbOfSlots = 10_000;
+        underTest = Inventory.builder().withNbOfSlots(nbOfSlots).build();
+        for (int i = 0; i < nbOfSlots; i++) {
+            assertThat(underTest.add(ItemStack.builder(oakLog).quantity(64).build())).isNull();
+        }
+        assertThat(underTest.add(ItemStack.builder(oakLog).quantity(1).build())).isNotNull();
+        underTest.remove(nbOfSlots / 2);
+        assertThat(underTest.add(ItemStack.builder(oakPlank).quantity(1).build())).isNull();
+        assertThat(underTest.getItemStack(nbOfSlots / 2).item()).isEqualTo(oakPlank);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void addAll(Inventory.Storage storage) {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = Inventory.builder()
+                .withNbOfSlots(4)
+                .withStorage(storage)
+                .withSlots(List.of(Slot.builder().item(oakPlank).build()))
+                .build();
+        underTest.add(1, ItemStack.builder(item).quantity(4).build());
+        List<ItemStack> loot = List.of(
+                ItemStack.builder(item).quantity(5).build(),
+                ItemStack.builder(oakPlank).quantity(10).build(),
+                ItemStack.builder(item).quantity(6).build(),
+                ItemStack.builder(oakLog).quantity(1).build(),
+                ItemStack.builder(item).quantity(6).build());
+
+        List<ItemStack> result = underTest.addAll(loot);
+
+        // 2 in the partial stack, 12 in the two empty slots, 3 left; the planks go to the slot locked to them
+        assertThat(result).containsExactly(
+                ItemStack.builder(item).quantity(3).build(),
+                ItemStack.builder(oakLog).quantity(1).build());
+        assertThat(underTest.getItemStack(0)).isEqualTo(ItemStack.builder(oakPlank).quantity(10).build());
+        assertThat(underTest.getItemStack(1).quantity()).isEqualTo(6);
+        assertThat(underTest.getItemStack(2).quantity()).isEqualTo(6);
+        assertThat(underTest.getItemStack(3).quantity()).isEqualTo(6);
+        assertThat(loot.get(0).quantity()).isEqualTo(5);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void canFit(Inventory.Storage storage) {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = Inventory.builder()
+                .withNbOfSlots(3)
+                .withStorage(storage)
+                .withSlots(List.of(Slot.builder().item(oakPlank).build()))
+                .build();
+        underTest.add(1, ItemStack.builder(item).quantity(4).build());
+        List<ItemStack> fitting = List.of(
+                ItemStack.builder(item).quantity(5).build(),
+                ItemStack.builder(item).quantity(3).build(),
+                ItemStack.builder(oakPlank).quantity(64).build());
+        List<ItemStack> tooMany = List.of(
+                ItemStack.builder(item).quantity(5).build(),
+                ItemStack.builder(item).quantity(3).build(),
+                ItemStack.builder(oakLog).quantity(1).build());
+
+        assertThat(underTest.canFit(fitting)).isTrue();
+        assertThat(underTest.canFit(tooMany)).isFalse();
+        assertThat(underTest.canFit(List.of())).isTrue();
+        // nothing changed
+        assertThat(underTest.getItemStack(0)).isNull();
+        assertThat(underTest.getItemStack(1).quantity()).isEqualTo(4);
+        assertThat(underTest.getSlot(2).isEmpty()).isTrue();
+        assertThat(underTest.addAll(fitting)).isEmpty();
+        assertThat(underTest.canFit(List.of(ItemStack.builder(item).quantity(1).build()))).isFalse();
+    }
+
+    @Test
+    void addAll_invalid() {
+        underTest = Inventory.builder().withNbOfSlots(1).build();
+        ItemStack empty = mock(ItemStack.class);
+        when(empty.quantity()).thenReturn(0);
+        List<ItemStack> loot = List.of(ItemStack.builder(oakLog).quantity(1).build(), empty);
+
+        assertThatExceptionOfType(EmptyItemStackException.class).isThrownBy(() -> underTest.addAll(loot));
+        assertThatExceptionOfType(EmptyItemStackException.class).isThrownBy(() -> underTest.canFit(loot));
+        // validated before adding anything
+        assertThat(underTest.getSlot(0).isEmpty()).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void count(Inventory.Storage storage) {
+        underTest = Inventory.builder().withNbOfSlots(5).withStorage(storage).build();
+        assertThat(underTest.count(oakLog)).isZero();
+        underTest.add(ItemStack.builder(oakLog).quantity(64).build());
+        underTest.add(ItemStack.builder(oakLog).quantity(10).build());
+        underTest.add(3, ItemStack.builder(oakPlank).quantity(7).build());
+        underTest.add(4, ItemStack.builder(oakLog).quantity(1).build());
+        underTest.lock(4);
+        underTest.quantity(0, 60);
+
+        assertThat(underTest.count(oakLog)).isEqualTo(71);
+        assertThat(underTest.count(oakPlank)).isEqualTo(7);
+        assertThat(underTest.contains(oakLog, 71)).isTrue();
+        assertThat(underTest.contains(oakLog, 72)).isFalse();
+
+        underTest.sort();
+        underTest.remove(0);
+
+        // the locked slot sorted first and has been removed
+        assertThat(underTest.count(oakLog)).isEqualTo(70);
+        assertThat(underTest.count(oakPlank)).isEqualTo(7);
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.quantity(4, 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.quantity(1, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.quantity(1, 65));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void removeQuantity(Inventory.Storage storage) {
+        underTest = Inventory.builder().withNbOfSlots(5).withStorage(storage).build();
+        underTest.add(0, ItemStack.builder(oakLog).quantity(64).build());
+        underTest.add(1, ItemStack.builder(oakPlank).quantity(7).build());
+        underTest.add(2, ItemStack.builder(oakLog).quantity(20).build());
+        underTest.add(3, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.lock(3);
+
+        assertThat(underTest.removeQuantity(oakLog, 90)).isFalse();
+        assertThat(underTest.count(oakLog)).isEqualTo(89);
+        assertThat(underTest.removeQuantity(oakLog, 15)).isTrue();
+
+        // drained from the last slot holding the item, which keeps its lock
+        assertThat(underTest.count(oakLog)).isEqualTo(74);
+        assertThat(underTest.getItemStack(3)).isNull();
+        assertThat(underTest.getItem(3)).isEqualTo(oakLog);
+        assertThat(underTest.getItemStack(2).quantity()).isEqualTo(10);
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(64);
+        assertThat(underTest.removeQuantity(oakLog, 74)).isTrue();
+        assertThat(underTest.count(oakLog)).isZero();
+        assertThat(underTest.getItemStack(1).quantity()).isEqualTo(7);
+        assertThat(underTest.getSlot(0).isEmpty()).isTrue();
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.removeQuantity(oakPlank, 0));
+    }
+
     @Test
     void add_withSlot_invalidSlot() {
         underTest = Inventory.builder().withNbOfSlots(1).build();
@@ -251,6 +449,257 @@ class InventoryTest {
         assertThat(underTest.getItemStack(1)).isEqualTo(itemStack2);
     }
 
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void storage_addLockRemove(Inventory.Storage storage) {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = Inventory.builder()
+                .withNbOfSlots(3)
+                .withStorage(storage)
+                .withSlots(List.of(Slot.builder().item(oakPlank).build()))
+                .build();
+
+        assertThat(underTest.add(ItemStack.builder(item).quantity(5).build())).isNull();
+        assertThat(underTest.add(ItemStack.builder(oakPlank).quantity(4).build())).isNull();
+        ItemStack result = underTest.add(ItemStack.builder(item).quantity(6).build());
+        ItemStack leftover = underTest.add(ItemStack.builder(item).quantity(2).build());
+
+        assertThat(result).isNull();
+        assertThat(leftover).isEqualTo(ItemStack.builder(item).quantity(1).build());
+        assertThat(underTest.getItemStack(0)).isEqualTo(ItemStack.builder(oakPlank).quantity(4).build());
+        assertThat(underTest.getItem(0)).isEqualTo(oakPlank);
+        assertThat(underTest.getItemStack(1)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+        assertThat(underTest.getItemStack(2)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+
+        underTest.lock(2);
+        assertThat(underTest.remove(2)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+        assertThat(underTest.getSlot(2).isEmpty()).isFalse();
+        assertThat(underTest.add(2, ItemStack.builder(oakLog).quantity(1).build())).isNotNull();
+        underTest.unlock(2);
+        assertThat(underTest.getSlot(2).isEmpty()).isTrue();
+        assertThat(underTest.remove(2)).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void storage_addQuantity(Inventory.Storage storage) {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = Inventory.builder().withNbOfSlots(4).withStorage(storage).build();
+        underTest.add(1, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(2, ItemStack.builder(item).quantity(4).build());
+
+        // 2 merged into the partial stack, then two full stacks and 1 left
+        assertThat(underTest.add(item, 15)).isEqualTo(1);
+
+        assertThat(underTest.getItemStack(0)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+        assertThat(underTest.getItemStack(2)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+        assertThat(underTest.getItemStack(3)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+        assertThat(underTest.add(oakLog, 1)).isZero();
+        assertThat(underTest.getItemStack(1).quantity()).isEqualTo(6);
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.add(oakLog, 0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void storage_sort(Inventory.Storage storage) {
+        underTest = Inventory.builder().withNbOfSlots(4).withStorage(storage).build();
+        underTest.add(1, ItemStack.builder(oakPlank).quantity(4).build());
+        underTest.add(2, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(3, ItemStack.builder(oakLog).quantity(7).build());
+
+        underTest.sort();
+
+        assertThat(List.of(underTest.getItemStack(0), underTest.getItemStack(1), underTest.getItemStack(2)))
+                .containsExactly(ItemStack.builder(oakLog).quantity(7).build(),
+                        ItemStack.builder(oakLog).quantity(5).build(),
+                        ItemStack.builder(oakPlank).quantity(4).build());
+        assertThat(underTest.getSlot(3).isEmpty()).isTrue();
+        // the index follows the slots
+        assertThat(underTest.add(ItemStack.builder(oakPlank).quantity(1).build())).isNull();
+        assertThat(underTest.getSlot(3).isEmpty()).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void storage_sortLarge(Inventory.Storage storage) {
+        underTest = Inventory.builder().withNbOfSlots(270).withStorage(storage).build();
+        Random random = new Random(42);
+        for (int i = 0; i < underTest.nbOfSlots(); i++) {
+            if (random.nextInt(4) != 0) {
+                underTest.add(i, ItemStack.builder(random.nextBoolean() ? oakLog : oakPlank)
+                        .quantity(1 + random.nextInt(64))
+                        .build());
+            }
+        }
+
+        underTest.sort();
+
+        for (int i = 1; i < underTest.nbOfSlots(); i++) {
+            assertThat(underTest.getSlot(i - 1).compareTo(underTest.getSlot(i))).isLessThanOrEqualTo(0);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void storage_sortIncremental(Inventory.Storage storage) {
+        Item locked = Item.builder().name("locked").category(Item.Category.CONSUMABLE).stackSize(8).build();
+        List<Item> items = List.of(oakLog, oakPlank, locked);
+        underTest = Inventory.builder().withNbOfSlots(60).withStorage(storage).build();
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            // a few changes between two sorts
+            for (int change = 0; change < 1 + random.nextInt(5); change++) {
+                int slotIndex = random.nextInt(underTest.nbOfSlots());
+                if (random.nextInt(4) == 0) {
+                    underTest.remove(slotIndex);
+                } else if (random.nextInt(8) == 0 && !underTest.getSlot(slotIndex).isEmpty()) {
+                    underTest.lock(slotIndex);
+                } else if (underTest.getSlot(slotIndex).isEmpty()) {
+                    Item item = items.get(random.nextInt(items.size()));
+                    underTest.add(slotIndex, ItemStack.builder(item).quantity(1 + random.nextInt(item.stackSize())).build());
+                }
+            }
+            List<Slot> expected = new ArrayList<>();
+            for (int i = 0; i < underTest.nbOfSlots(); i++) {
+                expected.add(Slot.from(underTest.getSlot(i)));
+            }
+            expected.sort(null);
+
+            underTest.sort();
+
+            for (int i = 0; i < underTest.nbOfSlots(); i++) {
+                assertThat(underTest.getItem(i)).isEqualTo(expected.get(i).item());
+                assertThat(underTest.getItemStack(i)).isEqualTo(expected.get(i).itemStack());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void storage_sortAndMergeStacks(Inventory.Storage storage) {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        underTest = Inventory.builder().withNbOfSlots(6).withStorage(storage).build();
+        underTest.add(0, ItemStack.builder(item).quantity(2).build());
+        underTest.add(1, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(2, ItemStack.builder(item).quantity(5).build());
+        underTest.add(3, ItemStack.builder(item).quantity(3).build());
+        underTest.add(4, ItemStack.builder(item).quantity(4).build());
+        underTest.lock(4);
+        underTest.add(5, ItemStack.builder(item).quantity(1).build());
+        underTest.lock(5);
+
+        underTest.sortAndMergeStacks();
+
+        // slots locked to the item come first and are merged together, then the stacks of the other slots
+        assertThat(underTest.getItemStack(0)).isEqualTo(ItemStack.builder(item).quantity(5).build());
+        assertThat(underTest.getItem(1)).isEqualTo(item);
+        assertThat(underTest.getItemStack(1)).isNull();
+        assertThat(underTest.getItemStack(2)).isEqualTo(ItemStack.builder(oakLog).quantity(5).build());
+        assertThat(underTest.getItemStack(3)).isEqualTo(ItemStack.builder(item).quantity(6).build());
+        assertThat(underTest.getItemStack(4)).isEqualTo(ItemStack.builder(item).quantity(4).build());
+        assertThat(underTest.getSlot(5).isEmpty()).isTrue();
+        // the index follows the slots
+        assertThat(underTest.add(item, 1)).isZero();
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(6);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Inventory.Storage.class)
+    void journal_deltasSince(Inventory.Storage storage) {
+        underTest = Inventory.builder().withNbOfSlots(4).withStorage(storage).withJournal(16).build();
+        assertThat(underTest.journalSequence()).isZero();
+        underTest.add(ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(2, ItemStack.builder(oakPlank).quantity(4).build());
+        long sequence = underTest.journalSequence();
+
+        underTest.add(ItemStack.builder(oakLog).quantity(3).build());
+        underTest.lock(0);
+        underTest.remove(2);
+
+        InventoryDeltas result = underTest.deltasSince(sequence);
+
+        // one delta per slot changed, with its latest state
+        assertThat(result.sequence()).isEqualTo(sequence + 3).isEqualTo(underTest.journalSequence());
+        assertThat(result.isFull()).isFalse();
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.slotIndex(0)).isEqualTo(2);
+        assertThat(result.itemId(0)).isEqualTo(InventoryDeltas.NONE);
+        assertThat(result.quantity(0)).isZero();
+        assertThat(result.slotIndex(1)).isZero();
+        assertThat(result.item(1)).isEqualTo(oakLog);
+        assertThat(result.quantity(1)).isEqualTo(8);
+        assertThat(result.lockedItem(1)).isEqualTo(oakLog);
+        assertThat(underTest.deltasSince(result.sequence()).isEmpty()).isTrue();
+        assertThat(underTest.deltasSince(0).size()).isEqualTo(2);
+    }
+
+    @Test
+    void journal_overflow() {
+        underTest = Inventory.builder().withNbOfSlots(3).withJournal(2).build();
+        underTest.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        underTest.add(1, ItemStack.builder(oakPlank).quantity(4).build());
+        underTest.remove(0);
+
+        InventoryDeltas result = underTest.deltasSince(0);
+
+        // the first change is no longer journaled: every slot is sent
+        assertThat(result.isFull()).isTrue();
+        assertThat(result.sequence()).isEqualTo(3);
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.item(1)).isEqualTo(oakPlank);
+        assertThat(result.item(0)).isNull();
+        assertThat(underTest.deltasSince(1).isFull()).isFalse();
+    }
+
+    @Test
+    void journal_invalid() {
+        Inventory withoutJournal = Inventory.builder().withNbOfSlots(1).build();
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(withoutJournal::journalSequence);
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> withoutJournal.deltasSince(0));
+        assertThatIllegalArgumentException().isThrownBy(() -> Inventory.builder().withJournal(-1).build());
+
+        underTest = Inventory.builder().withNbOfSlots(1).withJournal(4).build();
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.deltasSince(-1));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.deltasSince(1));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.deltasSince(0).slotIndex(0));
+    }
+
+    @Test
+    void storage_compactReturnsViews() {
+        underTest = Inventory.builder().withNbOfSlots(1).withStorage(Inventory.Storage.COMPACT).build();
+        underTest.add(0, ItemStack.builder(oakLog).quantity(5).build());
+
+        underTest.getItemStack(0).quantity(1);
+        underTest.getSlot(0).itemStack(null);
+
+        assertThat(underTest.getItemStack(0).quantity()).isEqualTo(5);
+    }
+
+    @Test
+    void add_metrics() {
+        Metrics metrics = Metrics.global();
+        Counter calls = metrics.counter(Subsystem.INVENTORY, "add.calls");
+        Counter leftovers = metrics.counter(Subsystem.INVENTORY, "add.leftovers");
+        Counter scannedSlots = metrics.counter(Subsystem.INVENTORY, "add.scannedSlots");
+        underTest = Inventory.builder().withNbOfSlots(2).build();
+        metrics.enable(Subsystem.INVENTORY);
+        try {
+            long callsBefore = calls.sum();
+            long leftoversBefore = leftovers.sum();
+            long scannedSlotsBefore = scannedSlots.sum();
+
+            underTest.add(oakLog, oakLog.stackSize() - 1);
+            underTest.add(oakLog, 2 * oakLog.stackSize());
+
+            assertThat(calls.sum() - callsBefore).isEqualTo(2);
+            assertThat(leftovers.sum() - leftoversBefore).isEqualTo(1);
+            // the first empty slot, then the partial stack and the last empty slot
+            assertThat(scannedSlots.sum() - scannedSlotsBefore).isEqualTo(3);
+        } finally {
+            metrics.disable(Subsystem.INVENTORY);
+        }
+    }
+
     @Test
     void toStringTest() {
         // For coverage completion
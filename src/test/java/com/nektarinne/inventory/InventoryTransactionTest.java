@@ -0,0 +1,183 @@
+package com.nektarinne.inventory;
+
+import com.nektarinne.common.Item;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class InventoryTransactionTest {
+
+    private final Item oakLog = Item.builder()
+            .name("oakLog")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+    private final Item oakPlank = Item.builder()
+            .name("oakPlank")
+            .category(Item.Category.EQUIPMENT)
+            .build();
+
+    @Test
+    void commit_trade() {
+        Inventory inventory1 = Inventory.builder().withNbOfSlots(2).build();
+        Inventory inventory2 = Inventory.builder().withNbOfSlots(2).build();
+        ItemStack logs = ItemStack.builder(oakLog).quantity(5).build();
+        ItemStack planks = ItemStack.builder(oakPlank).quantity(4).build();
+        inventory1.add(0, logs);
+        inventory2.add(1, planks);
+
+        InventoryTransaction underTest = InventoryTransaction.create()
+                .remove(inventory1, 0)
+                .remove(inventory2, 1)
+                .add(inventory2, logs)
+                .add(inventory1, planks);
+
+        assertThat(underTest.commit()).isTrue();
+        assertThat(underTest.removed()).containsExactly(logs, planks);
+        assertThat(inventory1.getItemStack(0)).isEqualTo(planks);
+        assertThat(inventory2.getItemStack(0)).isEqualTo(logs);
+        assertThat(inventory2.getItemStack(1)).isNull();
+    }
+
+    @Test
+    void commit_rollback() {
+        Item item = Item.builder().name("test").category(Item.Category.EQUIPMENT).stackSize(6).build();
+        Inventory inventory = Inventory.builder().withNbOfSlots(2).build();
+        inventory.add(0, ItemStack.builder(item).quantity(5).build());
+        inventory.add(1, ItemStack.builder(oakLog).quantity(3).build());
+        inventory.lock(1);
+        ItemStack partialStack = inventory.getItemStack(0);
+
+        InventoryTransaction underTest = InventoryTransaction.create()
+                .add(inventory, ItemStack.builder(item).quantity(1).build())
+                .remove(inventory, 1)
+                .add(inventory, 1, ItemStack.builder(oakPlank).quantity(1).build());
+
+        assertThat(underTest.commit()).isFalse();
+        assertThat(underTest.removed()).isEmpty();
+        // same instance, previous quantity
+        assertThat(inventory.getItemStack(0)).isSameAs(partialStack);
+        assertThat(partialStack.quantity()).isEqualTo(5);
+        assertThat(inventory.getItemStack(1).quantity()).isEqualTo(3);
+        assertThat(inventory.getItem(1)).isEqualTo(oakLog);
+        // the index and the totals have been restored too
+        assertThat(inventory.count(item)).isEqualTo(5);
+        assertThat(inventory.count(oakLog)).isEqualTo(3);
+        assertThat(inventory.count(oakPlank)).isZero();
+        assertThat(inventory.add(ItemStack.builder(item).quantity(1).build())).isNull();
+        assertThat(inventory.getItemStack(0).quantity()).isEqualTo(6);
+    }
+
+    @Test
+    void commit_rollbackCompact() {
+        Inventory inventory = Inventory.builder().withNbOfSlots(2).withStorage(Inventory.Storage.COMPACT).build();
+        inventory.add(0, ItemStack.builder(oakLog).quantity(5).build());
+
+        boolean result = InventoryTransaction.create()
+                .add(inventory, ItemStack.builder(oakLog).quantity(60).build())
+                .remove(inventory, 1)
+                .remove(inventory, 1)
+                .commit();
+
+        assertThat(result).isFalse();
+        assertThat(inventory.getItemStack(0).quantity()).isEqualTo(5);
+        assertThat(inventory.getItemStack(1)).isNull();
+    }
+
+    @Test
+    void commit_rollbackCompactAfterRemoval() {
+        Inventory inventory = Inventory.builder().withNbOfSlots(2).withStorage(Inventory.Storage.COMPACT).build();
+        inventory.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        inventory.lock(0);
+
+        // the removal frees room: only applying the operations tells that the last one fails
+        boolean result = InventoryTransaction.create()
+                .add(inventory, ItemStack.builder(oakLog).quantity(oakLog.stackSize()).build())
+                .remove(inventory, 1)
+                .add(inventory, 0, ItemStack.builder(oakPlank).quantity(1).build())
+                .commit();
+
+        assertThat(result).isFalse();
+        assertThat(inventory.getItemStack(0).quantity()).isEqualTo(5);
+        assertThat(inventory.getItemStack(1)).isNull();
+        assertThat(inventory.getItem(0)).isEqualTo(oakLog);
+        assertThat(inventory.count(oakLog)).isEqualTo(5);
+    }
+
+    @Test
+    void commit_failsBeforeApplying() {
+        Inventory inventory = Inventory.builder().withNbOfSlots(2).withJournal(16).build();
+        inventory.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        long sequence = inventory.deltasSince(0).sequence();
+
+        boolean doesNotFit = InventoryTransaction.create()
+                .add(inventory, ItemStack.builder(oakPlank).quantity(1).build())
+                .add(inventory, ItemStack.builder(oakLog).quantity(oakLog.stackSize()).build())
+                .commit();
+        boolean removedTwice = InventoryTransaction.create()
+                .remove(inventory, 0)
+                .add(inventory, 1, ItemStack.builder(oakPlank).quantity(1).build())
+                .remove(inventory, 0)
+                .commit();
+
+        assertThat(doesNotFit).isFalse();
+        assertThat(removedTwice).isFalse();
+        // no change has been applied, then undone
+        assertThat(inventory.deltasSince(sequence).isEmpty()).isTrue();
+    }
+
+    @Test
+    void commit_removeEmptySlot() {
+        Inventory inventory = Inventory.builder().withNbOfSlots(2).build();
+
+        InventoryTransaction underTest = InventoryTransaction.create()
+                .add(inventory, 1, ItemStack.builder(oakLog).quantity(5).build())
+                .remove(inventory, 0);
+
+        assertThat(underTest.commit()).isFalse();
+        assertThat(inventory.getItemStack(1)).isNull();
+    }
+
+    @Test
+    void commit_concurrentInventories() {
+        ConcurrentInventory inventory1 = ConcurrentInventory.builder().withNbOfSlots(1).build();
+        ConcurrentInventory inventory2 = ConcurrentInventory.builder().withNbOfSlots(1).build();
+        inventory1.add(0, ItemStack.builder(oakLog).quantity(5).build());
+        inventory2.add(0, ItemStack.builder(oakPlank).quantity(5).build());
+
+        boolean result = InventoryTransaction.create()
+                .remove(inventory1, 0)
+                .add(inventory1, ItemStack.builder(oakPlank).quantity(5).build())
+                .add(inventory2, ItemStack.builder(oakLog).quantity(5).build())
+                .commit();
+
+        // inventory2 is full
+        assertThat(result).isFalse();
+        assertThat(inventory1.getItemStack(0).item()).isEqualTo(oakLog);
+        assertThat(inventory2.getItemStack(0).item()).isEqualTo(oakPlank);
+        // locks have been released
+        assertThat(inventory1.remove(0)).isNotNull();
+    }
+
+    @Test
+    void commit_invalid() {
+        Inventory inventory = Inventory.builder().withNbOfSlots(1).build();
+        ItemStack itemStack = ItemStack.builder(oakLog).quantity(5).build();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> InventoryTransaction.create()
+                .add(inventory, itemStack)
+                .remove(inventory, 1)
+                .commit());
+        assertThat(inventory.getItemStack(0)).isNull();
+
+        InventoryTransaction underTest = InventoryTransaction.create().add(inventory, itemStack);
+        assertThat(underTest.commit()).isTrue();
+        assertThatIllegalStateException().isThrownBy(underTest::commit);
+        assertThatIllegalStateException().isThrownBy(() -> underTest.remove(inventory, 0));
+        assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> InventoryTransaction.create()
+                .add(inventory, null)
+                .commit());
+    }
+}
@@ -0,0 +1,81 @@
+package com.nektarinne.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemIndexTest {
+
+    private final ItemIndex underTest = new ItemIndex(64);
+
+    @Test
+    void addAndRemove() {
+        underTest.addCandidate(3, 1);
+        underTest.addHolding(3, 1, 5);
+        underTest.addHolding(1_000_000, 2, 7);
+
+        assertThat(underTest.size()).isEqualTo(2);
+        assertThat(underTest.candidates(3).get(1)).isTrue();
+        assertThat(underTest.holding(3).get(1)).isTrue();
+        assertThat(underTest.total(3)).isEqualTo(5);
+        assertThat(underTest.candidates(1_000_000)).isNull();
+        assertThat(underTest.total(1_000_000)).isEqualTo(7);
+        assertThat(underTest.holding(4)).isNull();
+        assertThat(underTest.total(4)).isZero();
+
+        underTest.removeHolding(3, 1, 5);
+        assertThat(underTest.size()).isEqualTo(2);
+        underTest.removeCandidate(3, 1);
+
+        // no slot is indexed under item 3 anymore
+        assertThat(underTest.size()).isEqualTo(1);
+        assertThat(underTest.candidates(3)).isNull();
+        assertThat(underTest.total(1_000_000)).isEqualTo(7);
+    }
+
+    @Test
+    void randomOperations_matchMap() {
+        Random random = new Random(42);
+        Map<Integer, BitSet> expectedHolding = new HashMap<>();
+        Map<Integer, Long> expectedTotals = new HashMap<>();
+        int[] slotItems = new int[64];
+        int[] slotQuantities = new int[64];
+        Arrays.fill(slotItems, -1);
+
+        for (int i = 0; i < 100_000; i++) {
+            int slot = random.nextInt(64);
+            if (slotItems[slot] != -1) {
+                int itemId = slotItems[slot];
+                underTest.removeHolding(itemId, slot, slotQuantities[slot]);
+                expectedHolding.get(itemId).clear(slot);
+                expectedTotals.merge(itemId, (long) -slotQuantities[slot], Long::sum);
+                if (expectedHolding.get(itemId).isEmpty()) {
+                    expectedHolding.remove(itemId);
+                    expectedTotals.remove(itemId);
+                }
+                slotItems[slot] = -1;
+            } else {
+                // colliding ids: multiples of a large power of 2
+                int itemId = random.nextInt(40) << 20;
+                int quantity = 1 + random.nextInt(64);
+                underTest.addHolding(itemId, slot, quantity);
+                expectedHolding.computeIfAbsent(itemId, k -> new BitSet()).set(slot);
+                expectedTotals.merge(itemId, (long) quantity, Long::sum);
+                slotItems[slot] = itemId;
+                slotQuantities[slot] = quantity;
+            }
+        }
+
+        assertThat(underTest.size()).isEqualTo(expectedHolding.size());
+        for (int itemId = 0; itemId < 40; itemId++) {
+            assertThat(underTest.holding(itemId << 20)).isEqualTo(expectedHolding.get(itemId << 20));
+            assertThat(underTest.total(itemId << 20)).isEqualTo(expectedTotals.getOrDefault(itemId << 20, 0L));
+        }
+    }
+}
@@ -83,6 +83,17 @@ class ItemStackTest {
         assertThat(underTest.quantity()).isEqualTo(ITEM_1.stackSize());
     }
 
+    @Test
+    void merge() {
+        ItemStack underTest = ItemStack.builder(ITEM_1).quantity(ITEM_1.stackSize() - 3).build();
+
+        assertThat(underTest.merge(2)).isZero();
+        assertThat(underTest.merge(ITEM_1.stackSize() * 2)).isEqualTo(ITEM_1.stackSize() * 2 - 1);
+        assertThat(underTest.merge(0)).isZero();
+        assertThat(underTest.isMaxSize()).isTrue();
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.merge(-1));
+    }
+
     @Test
     void repr() {
         ItemStack underTest;
@@ -0,0 +1,57 @@
+package com.nektarinne.l18n;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class MessageTemplateTest {
+
+    private static final Object[] ARGS = {"text", 42, -7L, null, 3.14159, BigInteger.TEN};
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "no specifier",
+            "%s and %d",
+            "%s %d %d %s %.2f %s",
+            "100%% sure%n",
+            "%2$s then %1$s then %<s then %s",
+            "%5s|%-6d|%,d|%S|%.1f|%x",
+            "%6$d %6$s",
+            "%4$d %4$s",
+            "%2$05d",
+    })
+    void render_likeFormatted(String text) {
+        StringBuilder result = new StringBuilder("prefix ");
+
+        MessageTemplate.compile(text).render(result, Locale.getDefault(Locale.Category.FORMAT), ARGS);
+
+        assertThat(result.toString()).isEqualTo("prefix " + text.formatted(ARGS));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"%d", "%s %s %s %s %s %s %s", "%q", "100%", "%7$s", "%<s"})
+    void render_failsLikeFormatted(String text) {
+        MessageTemplate underTest = MessageTemplate.compile(text);
+        Class<? extends Throwable> expected = catchFormatException(text);
+
+        assertThatExceptionOfType(IllegalFormatException.class)
+                .isThrownBy(() -> underTest.render(new StringBuilder(), Locale.getDefault(Locale.Category.FORMAT), "text"))
+                .isInstanceOf(expected);
+    }
+
+    private static Class<? extends Throwable> catchFormatException(String text) {
+        try {
+            text.formatted("text");
+        } catch (IllegalFormatException e) {
+            return e.getClass();
+        }
+        throw new AssertionError("'%s' should not be formatted".formatted(text));
+    }
+}
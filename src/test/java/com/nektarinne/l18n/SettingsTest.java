@@ -0,0 +1,118 @@
+package com.nektarinne.l18n;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SettingsTest {
+
+    @TempDir
+    private Path directory;
+
+    private Properties read(Path path) throws IOException {
+        Properties result = new Properties();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            result.load(inputStream);
+        }
+        return result;
+    }
+
+    private long filesIn(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void set_synchronous() throws IOException {
+        Path path = directory.resolve("settings.properties");
+        Settings underTest = Settings.builder().path(path).build();
+
+        assertThat(underTest.set("locale", "fr-FR")).isNull();
+        assertThat(underTest.set("locale", "en-US")).isEqualTo("fr-FR");
+
+        assertThat(read(path)).containsEntry("locale", "en-US");
+        assertThat(filesIn(directory)).isEqualTo(1);
+        assertThat(Settings.builder().path(path).build().getString("locale")).isEqualTo("en-US");
+    }
+
+    @Test
+    void set_writeBehindCoalesces() throws IOException {
+        Path path = directory.resolve("settings.properties");
+        Settings underTest = Settings.builder().path(path).writeBehind(Duration.ofHours(1)).build();
+
+        underTest.set("locale", "fr-FR");
+        underTest.set("volume", "10");
+        underTest.set("locale", "en-US");
+
+        assertThat(underTest.getString("locale")).isEqualTo("en-US");
+        assertThat(read(path)).isEmpty();
+
+        underTest.close();
+
+        assertThat(read(path)).containsEntry("locale", "en-US").containsEntry("volume", "10");
+        assertThat(filesIn(directory)).isEqualTo(1);
+    }
+
+    @Test
+    void set_writeBehindInBackground() throws IOException, InterruptedException {
+        Path path = directory.resolve("settings.properties");
+        Settings underTest = Settings.builder().path(path).writeBehind(Duration.ofMillis(10)).build();
+
+        underTest.set("locale", "fr-FR");
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!"fr-FR".equals(read(path).getProperty("locale")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(read(path)).containsEntry("locale", "fr-FR");
+    }
+
+    @Test
+    void snapshot() {
+        Settings underTest = Settings.builder().path(directory.resolve("settings.properties")).build();
+        underTest.set("volume", "10");
+        underTest.set("fullscreen", "TRUE");
+        underTest.set("locale", "fr-FR");
+        SettingsSnapshot snapshot = underTest.snapshot();
+
+        underTest.set("volume", "11");
+
+        assertThat(snapshot.getInt("volume", 0)).isEqualTo(10);
+        assertThat(underTest.snapshot().getInt("volume", 0)).isEqualTo(11);
+        assertThat(snapshot.getInt("missing", 5)).isEqualTo(5);
+        assertThat(snapshot.getBoolean("fullscreen", false)).isTrue();
+        assertThat(snapshot.getLocale("locale", Locale.ROOT)).isEqualTo(Locale.FRANCE);
+        assertThatIllegalArgumentException().isThrownBy(() -> snapshot.getInt("locale", 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> snapshot.getBoolean("volume", false));
+    }
+
+    @Test
+    void listeners() {
+        Settings underTest = Settings.builder().path(directory.resolve("settings.properties")).build();
+        List<String> changes = new ArrayList<>();
+        SettingsListener listener = (key, snapshot) -> changes.add(key + "=" + snapshot.getString(key));
+        underTest.addListener(listener);
+
+        underTest.set("volume", "10");
+        underTest.set("volume", "10");
+        underTest.set("locale", "fr-FR");
+        underTest.removeListener(listener);
+        underTest.set("volume", "11");
+
+        assertThat(changes).containsExactly("volume=10", "locale=fr-FR");
+    }
+}
@@ -63,6 +63,17 @@ class TrTest {
                 .isEqualTo("French expected variable 1");
     }
 
+    @Test
+    void tr_intoBuilder() {
+        StringBuilder result = new StringBuilder("> ");
+
+        underTest.tr(result, valid.TEST_S_VAR_D.toString(), "expected", 1);
+        result.append(' ');
+        underTest.tr(result, "MISSING_%s", "KEY");
+
+        assertThat(result.toString()).isEqualTo("> English expected variable 1 MISSING_KEY");
+    }
+
     enum valid {
         TEST,
         TEST_S_VARIABLE,
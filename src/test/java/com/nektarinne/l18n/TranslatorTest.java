@@ -0,0 +1,100 @@
+package com.nektarinne.l18n;
+
+import com.nektarinne.metrics.Counter;
+import com.nektarinne.metrics.Metrics;
+import com.nektarinne.metrics.Subsystem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatException;
+
+class TranslatorTest {
+
+    private static final Locale EN_US = Locale.forLanguageTag("en-US");
+    private static final Locale FR_FR = Locale.forLanguageTag("fr-FR");
+    private final Translator underTest = Translator.global();
+
+    @Test
+    void tr() {
+        assertThat(underTest.tr(EN_US, "TEST")).isEqualTo("English");
+        assertThat(underTest.tr(FR_FR, "TEST")).isEqualTo("French");
+        assertThat(underTest.tr(FR_FR, "MISSING")).isEqualTo("MISSING");
+        assertThat(underTest.tr(EN_US, "TEST_S_VAR_D", "expected", 1)).isEqualTo("English expected variable 1");
+        assertThat(underTest.tr(FR_FR, "TEST_S_VAR_D", "expected", 1)).isEqualTo("French expected variable 1");
+        assertThat(underTest.tr(FR_FR, "TEST_S_VARIABLE", (Object[]) null)).isEqualTo("French %s variable");
+    }
+
+    @Test
+    void tr_metrics() {
+        Metrics metrics = Metrics.global();
+        Counter translations = metrics.counter(Subsystem.L18N, "translations");
+        Counter missingKeys = metrics.counter(Subsystem.L18N, "missingKeys");
+        metrics.enable(Subsystem.L18N);
+        try {
+            long translationsBefore = translations.sum();
+            long missingKeysBefore = missingKeys.sum();
+
+            underTest.tr(EN_US, "TEST");
+            underTest.tr(EN_US, "MISSING");
+            underTest.tr(new StringBuilder(), FR_FR, "MISSING_S", "a");
+
+            assertThat(translations.sum() - translationsBefore).isEqualTo(3);
+            assertThat(missingKeys.sum() - missingKeysBefore).isEqualTo(2);
+        } finally {
+            metrics.disable(Subsystem.L18N);
+        }
+    }
+
+    @Test
+    void tr_intoBuilder() {
+        StringBuilder result = new StringBuilder();
+
+        underTest.tr(result, EN_US, "TEST_S_VARIABLE", "a");
+        underTest.tr(result, FR_FR, "TEST");
+
+        assertThat(result.toString()).isEqualTo("English a variableFrench");
+    }
+
+    @Test
+    void tr_invalidArgument() {
+        StringBuilder result = new StringBuilder("kept");
+
+        assertThatException().isThrownBy(() -> underTest.tr(result, EN_US, "TEST_S_VAR_D", "expected", "not a number"))
+                .withMessageContaining("English %s variable %d");
+        assertThat(result.toString()).isEqualTo("kept");
+    }
+
+    @Test
+    void tr_concurrentLocales() throws ExecutionException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Locale locale = i % 2 == 0 ? EN_US : FR_FR;
+                String expected = (i % 2 == 0 ? "English" : "French") + " player" + i + " variable " + i;
+                int player = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        if (!underTest.tr(locale, "TEST_S_VAR_D", "player" + player, player).equals(expected)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
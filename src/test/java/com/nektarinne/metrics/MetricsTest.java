@@ -0,0 +1,145 @@
+package com.nektarinne.metrics;
+
+import com.nektarinne.common.LongHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MetricsTest {
+
+    private final Metrics underTest = new Metrics();
+
+    @Test
+    void counter_disabledByDefault() {
+        Counter counter = underTest.counter(Subsystem.INVENTORY, "calls");
+
+        counter.increment();
+        counter.add(3);
+
+        assertThat(counter.name()).isEqualTo("inventory.calls");
+        assertThat(counter.sum()).isZero();
+        assertThat(underTest.isEnabled(Subsystem.INVENTORY)).isFalse();
+        assertThat(underTest.report()).isEmpty();
+    }
+
+    @Test
+    void enable_perSubsystem() {
+        Counter inventory = underTest.counter(Subsystem.INVENTORY, "calls");
+        underTest.enable(Subsystem.INVENTORY);
+        // registered after the subsystem has been enabled
+        Counter dropTables = underTest.counter(Subsystem.DROP_TABLES, "calls");
+        Counter l18n = underTest.counter(Subsystem.L18N, "calls");
+        underTest.enable(Subsystem.L18N);
+
+        inventory.increment();
+        dropTables.increment();
+        l18n.add(2);
+        underTest.disable(Subsystem.L18N);
+        l18n.increment();
+
+        assertThat(inventory.sum()).isEqualTo(1);
+        assertThat(dropTables.sum()).isZero();
+        assertThat(l18n.sum()).isEqualTo(2);
+        assertThat(underTest.counter(Subsystem.INVENTORY, "calls")).isSameAs(inventory);
+    }
+
+    @Test
+    void counter_concurrentIncrements() throws ExecutionException, InterruptedException {
+        underTest.enable(Subsystem.INVENTORY);
+        Counter counter = underTest.counter(Subsystem.INVENTORY, "calls");
+        ConcurrentHistogram histogram = underTest.histogram(Subsystem.INVENTORY, "values");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        counter.increment();
+                        histogram.record(j % 100);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(counter.sum()).isEqualTo(40_000);
+        LongHistogram snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(40_000);
+        assertThat(snapshot.max()).isEqualTo(99);
+    }
+
+    @Test
+    void timer_sampled() {
+        underTest.enable(Subsystem.DROP_TABLES);
+        ConcurrentHistogram timer = underTest.timer(Subsystem.DROP_TABLES, "nanos");
+
+        for (int i = 0; i < 64_000; i++) {
+            timer.stopTimer(timer.startTimer());
+        }
+
+        assertThat(timer.snapshot().count()).isBetween(500L, 1500L);
+        assertThat(timer.sampling()).isEqualTo(Metrics.TIMER_SAMPLING);
+        assertThat(underTest.histogram(Subsystem.DROP_TABLES, "values").sampling()).isEqualTo(1);
+        underTest.disable(Subsystem.DROP_TABLES);
+        assertThat(timer.startTimer()).isEqualTo(ConcurrentHistogram.NOT_TIMED);
+    }
+
+    @Test
+    void report() {
+        underTest.enable(Subsystem.INVENTORY);
+        underTest.counter(Subsystem.INVENTORY, "calls").add(7);
+        underTest.counter(Subsystem.DROP_TABLES, "drops").add(3);
+        ConcurrentHistogram histogram = underTest.histogram(Subsystem.INVENTORY, "values");
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        // a sampled call
+        underTest.timer(Subsystem.INVENTORY, "nanos").record(5);
+
+        assertThat(underTest.report().lines()).containsExactly(
+                "inventory.calls 7",
+                "inventory.nanos count=1 min=5 p50=5 p90=5 p99=5 max=5 mean=5.0 estimatedCalls=" + Metrics.TIMER_SAMPLING,
+                "inventory.values count=10 min=1 p50=5 p90=9 p99=10 max=10 mean=5.5");
+
+        underTest.reset();
+
+        assertThat(underTest.report().lines()).containsExactly(
+                "inventory.calls 0",
+                "inventory.nanos count=0 min=0 p50=0 p90=0 p99=0 max=0 mean=0.0 estimatedCalls=0",
+                "inventory.values count=0 min=0 p50=0 p90=0 p99=0 max=0 mean=0.0");
+    }
+
+    @Test
+    void register_invalid() {
+        underTest.counter(Subsystem.INVENTORY, "calls");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.histogram(Subsystem.INVENTORY, "calls"));
+        assertThatIllegalArgumentException().isThrownBy(() -> underTest.startReporting(Duration.ZERO));
+    }
+
+    @Test
+    void startReporting() {
+        underTest.enable(Subsystem.INVENTORY);
+        underTest.counter(Subsystem.INVENTORY, "calls").increment();
+
+        underTest.startReporting(Duration.ofMillis(10));
+        underTest.startReporting(Duration.ofMillis(10));
+        underTest.stopReporting();
+        underTest.stopReporting();
+
+        assertThat(underTest.toString()).isNotBlank();
+    }
+}